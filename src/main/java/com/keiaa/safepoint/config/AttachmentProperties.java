@@ -0,0 +1,56 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.mail.attachments")
+public class AttachmentProperties {
+    // Total size of all attachments in one email, as transferred (base64)
+    private DataSize totalBudget = DataSize.ofMegabytes(8);
+    // Files at or below this size are attached as-is, larger ones as previews
+    private DataSize sendOriginalBelow = DataSize.ofKilobytes(512);
+    // Longest side of a preview image, in pixels
+    private int previewMaxDimension = 1280;
+    // JPEG quality of previews, 0.0 to 1.0
+    private float previewQuality = 0.75f;
+
+    public DataSize getTotalBudget() {
+        return totalBudget;
+    }
+
+    public void setTotalBudget(DataSize totalBudget) {
+        this.totalBudget = totalBudget;
+    }
+
+    public DataSize getSendOriginalBelow() {
+        return sendOriginalBelow;
+    }
+
+    public void setSendOriginalBelow(DataSize sendOriginalBelow) {
+        this.sendOriginalBelow = sendOriginalBelow;
+    }
+
+    public int getPreviewMaxDimension() {
+        return previewMaxDimension;
+    }
+
+    public void setPreviewMaxDimension(int previewMaxDimension) {
+        this.previewMaxDimension = previewMaxDimension;
+    }
+
+    public float getPreviewQuality() {
+        return previewQuality;
+    }
+
+    public void setPreviewQuality(float previewQuality) {
+        this.previewQuality = previewQuality;
+    }
+}
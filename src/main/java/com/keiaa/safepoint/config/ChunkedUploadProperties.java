@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.uploads.chunked")
+public class ChunkedUploadProperties {
+    // Largest file a resumable upload may declare
+    private DataSize maxFileSize = DataSize.ofMegabytes(10);
+    // Unfinished or unclaimed uploads a student may hold at once
+    private int maxActivePerStudent = 10;
+    // Uploads untouched for this long are deleted with their data
+    private Duration expiry = Duration.ofHours(24);
+
+    public DataSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(DataSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxActivePerStudent() {
+        return maxActivePerStudent;
+    }
+
+    public void setMaxActivePerStudent(int maxActivePerStudent) {
+        this.maxActivePerStudent = maxActivePerStudent;
+    }
+
+    public Duration getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Duration expiry) {
+        this.expiry = expiry;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.derivatives")
+public class DerivativeProperties {
+    // Longest side of a thumbnail, in pixels
+    private int thumbnailSize = 320;
+    // Longest side of the web-friendly version, in pixels
+    private int webSize = 1600;
+    // JPEG quality of derivatives, 0.0 to 1.0
+    private float quality = 0.8f;
+    // Disk space for all derivatives; least recently used ones are evicted beyond this
+    private DataSize maxCacheSize = DataSize.ofMegabytes(512);
+    // Generate derivatives right after a report is submitted instead of on first view
+    private boolean eager = true;
+
+    public int getThumbnailSize() {
+        return thumbnailSize;
+    }
+
+    public void setThumbnailSize(int thumbnailSize) {
+        this.thumbnailSize = thumbnailSize;
+    }
+
+    public int getWebSize() {
+        return webSize;
+    }
+
+    public void setWebSize(int webSize) {
+        this.webSize = webSize;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    public DataSize getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    public void setMaxCacheSize(DataSize maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    public boolean isEager() {
+        return eager;
+    }
+
+    public void setEager(boolean eager) {
+        this.eager = eager;
+    }
+}
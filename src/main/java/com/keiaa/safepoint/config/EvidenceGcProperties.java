@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.evidence.gc")
+public class EvidenceGcProperties {
+    // Turns the reconciliation job off entirely
+    private boolean enabled = true;
+    // Unreferenced files younger than this may belong to a submission still in progress
+    private Duration gracePeriod = Duration.ofHours(24);
+    // How long orphans stay in quarantine, restorable, before they are deleted
+    private Duration quarantineRetention = Duration.ofDays(7);
+    // Upper bound on files examined per second, to keep the scan from competing with requests for disk
+    private int maxFilesPerSecond = 200;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getGracePeriod() {
+        return gracePeriod;
+    }
+
+    public void setGracePeriod(Duration gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    public Duration getQuarantineRetention() {
+        return quarantineRetention;
+    }
+
+    public void setQuarantineRetention(Duration quarantineRetention) {
+        this.quarantineRetention = quarantineRetention;
+    }
+
+    public int getMaxFilesPerSecond() {
+        return maxFilesPerSecond;
+    }
+
+    public void setMaxFilesPerSecond(int maxFilesPerSecond) {
+        this.maxFilesPerSecond = maxFilesPerSecond;
+    }
+}
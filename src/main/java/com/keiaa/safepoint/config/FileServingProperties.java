@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.files")
+public class FileServingProperties {
+    // Who sends file bodies: the app itself, or the reverse proxy after the app has checked the request
+    private Offload offload = Offload.NONE;
+    // Internal proxy location mapped to the data/ directory, used by X_ACCEL_REDIRECT
+    private String internalLocation = "/internal-files/";
+
+    public enum Offload {
+        NONE, X_ACCEL_REDIRECT, X_SENDFILE
+    }
+
+    public Offload getOffload() {
+        return offload;
+    }
+
+    public void setOffload(Offload offload) {
+        this.offload = offload;
+    }
+
+    public String getInternalLocation() {
+        return internalLocation;
+    }
+
+    public void setInternalLocation(String internalLocation) {
+        this.internalLocation = internalLocation;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.keiaa.safepoint.service.utility.RateLimitingService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the login rate limit to form login submissions before the
+ * credentials are checked. Clients are keyed by address and submitted
+ * username, so students sharing a school's address don't share a limit,
+ * and only failed attempts count against it (the login failure handlers
+ * record them). Throttled clients are sent back to the login page with
+ * "throttled" set.
+ */
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    // Longest username kept in a key; email addresses can't be longer
+    private static final int MAX_USERNAME_LENGTH = 254;
+
+    private final RateLimitingService rateLimitingService;
+    private final String loginUrl;
+
+    public LoginRateLimitFilter(RateLimitingService rateLimitingService, String loginUrl) {
+        this.rateLimitingService = rateLimitingService;
+        this.loginUrl = loginUrl;
+    }
+
+    /**
+     * The rate limit key of a login submission.
+     *
+     * @param request A form login request
+     * @return The client's address and the submitted username
+     */
+    public static String clientKey(HttpServletRequest request) {
+        String username = request.getParameter("username");
+        username = username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            username = username.substring(0, MAX_USERNAME_LENGTH);
+        }
+        // The address comes first so that truncating a stored key only cuts the username
+        return request.getRemoteAddr() + '|' + username;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if ("POST".equals(request.getMethod()) && loginUrl.equals(request.getServletPath())
+                && !rateLimitingService.isAllowedForLogin(clientKey(request))) {
+            response.sendRedirect(loginUrl + "?throttled=true");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
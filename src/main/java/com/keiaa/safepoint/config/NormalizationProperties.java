@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.uploads.normalize")
+public class NormalizationProperties {
+    // Re-encode uploads of the formats below as metadata-free JPEG
+    private boolean enabled = false;
+    // MIME types to re-encode; JPEG is left out since it would lose quality and its EXIF orientation
+    private Set<String> formats = new HashSet<>(Set.of("image/bmp", "image/tiff"));
+    // Longest side of a re-encoded image, in pixels
+    private int maxDimension = 4096;
+    // JPEG quality of re-encoded images, 0.0 to 1.0
+    private float quality = 0.85f;
+    // Also keep the upload as received, under data/originals
+    private boolean keepOriginal = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<String> getFormats() {
+        return formats;
+    }
+
+    public void setFormats(Set<String> formats) {
+        this.formats = formats;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public void setMaxDimension(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    public boolean isKeepOriginal() {
+        return keepOriginal;
+    }
+
+    public void setKeepOriginal(boolean keepOriginal) {
+        this.keepOriginal = keepOriginal;
+    }
+}
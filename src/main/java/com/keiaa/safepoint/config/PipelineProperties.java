@@ -0,0 +1,85 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.pipeline")
+public class PipelineProperties {
+    // Per-stage settings keyed by stage name; unlisted stages use the defaults
+    private Map<String, Stage> stages = new HashMap<>();
+
+    public Map<String, Stage> getStages() {
+        return stages;
+    }
+
+    public void setStages(Map<String, Stage> stages) {
+        this.stages = stages;
+    }
+
+    public Stage getStage(String name) {
+        return stages.getOrDefault(name, new Stage());
+    }
+
+    public static class Stage {
+        // Worker threads for the stage
+        private int threads = 2;
+        // Tasks allowed to wait; beyond this submissions are retried later
+        private int queueCapacity = 200;
+        // Total attempts per task, including the first
+        private int maxAttempts = 5;
+        // Delay before the first retry; doubles on each further attempt
+        private Duration initialBackoff = Duration.ofSeconds(5);
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+}
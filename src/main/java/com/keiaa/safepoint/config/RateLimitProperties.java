@@ -0,0 +1,121 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.rate-limit")
+public class RateLimitProperties {
+    // Where hits are counted: MEMORY on each node, or JDBC in the shared database for several nodes
+    private Backend backend = Backend.MEMORY;
+    // How often the JDBC backend writes its local counts and reads the cluster's
+    private Duration flushInterval = Duration.ofSeconds(1);
+    // Clients tracked across all policies; idle ones are dropped first when the limit is reached
+    private int maxKeys = 100_000;
+    // Verification email resends, despite the name; report submissions are not rate limited per client
+    private Policy reports = new Policy(5, Duration.ofMinutes(10));
+    private Policy passwordReset = new Policy(1, Duration.ofMinutes(5));
+    // Failed form logins per address and username, student and admin
+    private Policy login = new Policy(10, Duration.ofMinutes(5));
+    private Policy signup = new Policy(3, Duration.ofHours(1));
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Policy getReports() {
+        return reports;
+    }
+
+    public void setReports(Policy reports) {
+        this.reports = reports;
+    }
+
+    public Policy getPasswordReset() {
+        return passwordReset;
+    }
+
+    public void setPasswordReset(Policy passwordReset) {
+        this.passwordReset = passwordReset;
+    }
+
+    public Policy getLogin() {
+        return login;
+    }
+
+    public void setLogin(Policy login) {
+        this.login = login;
+    }
+
+    public Policy getSignup() {
+        return signup;
+    }
+
+    public void setSignup(Policy signup) {
+        this.signup = signup;
+    }
+
+    public enum Backend {
+        MEMORY,
+        JDBC
+    }
+
+    public static class Policy {
+        // Requests allowed in a burst
+        private int capacity;
+        // Time for an exhausted client to earn the full capacity back, one request at a time
+        private Duration period;
+
+        public Policy() {
+        }
+
+        public Policy(int capacity, Duration period) {
+            this.capacity = capacity;
+            this.period = period;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+    }
+}
@@ -7,11 +7,19 @@
 package com.keiaa.safepoint.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.keiaa.safepoint.service.DashboardStatisticsService;
 import com.keiaa.safepoint.service.EmailVerificationService;
 import com.keiaa.safepoint.service.PasswordResetService;
+import com.keiaa.safepoint.service.utility.ChunkedUploadService;
+import com.keiaa.safepoint.service.utility.DatabaseRateLimiter;
+import com.keiaa.safepoint.service.utility.EmailOutboxService;
+import com.keiaa.safepoint.service.utility.EvidenceReconciliationService;
+import com.keiaa.safepoint.service.utility.RateLimitingService;
 
 @Component
 public class ScheduledTasks {
@@ -22,9 +30,48 @@ public class ScheduledTasks {
     @Autowired
     private EmailVerificationService emailVerificationService;
 
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EvidenceReconciliationService evidenceReconciliationService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Autowired
+    private DatabaseRateLimiter databaseRateLimiter;
+
     @Scheduled(cron = "0 0 * * * ?") // Run every hour
     public void cleanupExpiredTokens() {
         passwordResetService.cleanupExpiredTokens();
         emailVerificationService.purgeExpiredTokens();
+        emailOutboxService.purgeSent();
+        chunkedUploadService.purgeExpired();
+        databaseRateLimiter.purgeExpired();
+    }
+
+    // Seeds the counters on first start and repairs any drift since
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 * * * ?") // Run every hour, offset from token cleanup
+    public void reconcileDashboardCounters() {
+        dashboardStatisticsService.reconcile();
+    }
+
+    // Long-running but paced; needs a scheduler pool larger than one thread
+    @Scheduled(cron = "${safepoint.evidence.gc.cron:0 15 3 * * ?}") // Run nightly by default
+    public void reconcileEvidenceFiles() {
+        evidenceReconciliationService.reconcile();
+    }
+
+    @Scheduled(fixedDelay = 60000) // Run every minute
+    public void evictIdleRateLimits() {
+        rateLimitingService.evictIdle();
     }
 }
@@ -17,9 +17,11 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.keiaa.safepoint.service.impl.AdminDetailsService;
 import com.keiaa.safepoint.service.impl.StudentDetailsService;
+import com.keiaa.safepoint.service.utility.RateLimitingService;
 
 @Configuration
 @EnableWebSecurity
@@ -32,6 +34,9 @@ public class SecurityConfig {
     @Autowired
     private StudentDetailsService studentDetailsService;
 
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -51,16 +56,23 @@ public class SecurityConfig {
     @Order(1)
     public SecurityFilterChain adminFilterChain(HttpSecurity http) throws Exception {
         http
-            .securityMatcher("/admin/**", "/admin-login")
+            // Evidence is only linked from the admin report view; its names are content hashes
+            // and must not work as public links
+            .securityMatcher("/admin/**", "/admin-login", "/files/**")
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/admin-login").permitAll()
                 .anyRequest().hasRole("ADMIN")
             )
+            .addFilterBefore(new LoginRateLimitFilter(rateLimitingService, "/admin-login"),
+                UsernamePasswordAuthenticationFilter.class)
             .formLogin(formLogin -> formLogin
                 .loginPage("/admin-login")
                 .loginProcessingUrl("/admin-login")
                 .defaultSuccessUrl("/admin/dashboard", true)
-                .failureUrl("/admin-login?error=true")
+                .failureHandler((request, response, exception) -> {
+                    rateLimitingService.recordFailedLogin(LoginRateLimitFilter.clientKey(request));
+                    response.sendRedirect("/admin-login?error=true");
+                })
                 .permitAll()
             )
             .logout(logout -> logout
@@ -82,14 +94,16 @@ public class SecurityConfig {
     public SecurityFilterChain studentFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/", "/files/**", "/css/**", "/js/**", "/img/**", "/images/**", "/icons/**", "/webjars/**",
+                .requestMatchers("/", "/css/**", "/js/**", "/img/**", "/images/**", "/icons/**", "/webjars/**",
                     "/favicon.ico", "/favicon.svg", "/manifest.json", "/service-worker.js", "/about", "/student-signup",
                     "/student-login", "/admin-login", "/verify-email", "/resend-verification", "/forgot-password",
                     "/reset-password").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
-                .requestMatchers("/dashboard", "/report", "/submit-report", "/schedule", "/submit-feedback").hasRole("STUDENT")
+                .requestMatchers("/dashboard", "/report", "/submit-report", "/uploads/**", "/schedule", "/submit-feedback").hasRole("STUDENT")
                 .anyRequest().denyAll()
             )
+            .addFilterBefore(new LoginRateLimitFilter(rateLimitingService, "/student-login"),
+                UsernamePasswordAuthenticationFilter.class)
             .formLogin(formLogin -> formLogin
                 .loginPage("/student-login")
                 .loginProcessingUrl("/student-login")
@@ -98,6 +112,7 @@ public class SecurityConfig {
                     if (exception instanceof LockedException) {
                         response.sendRedirect("/student-login?locked=true");
                     } else {
+                        rateLimitingService.recordFailedLogin(LoginRateLimitFilter.clientKey(request));
                         response.sendRedirect("/student-login?error=true");
                     }
                 })
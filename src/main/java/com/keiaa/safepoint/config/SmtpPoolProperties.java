@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "safepoint.mail.pool")
+public class SmtpPoolProperties {
+    // Open SMTP connections at most; a batch is split across them
+    private int maxConnections = 3;
+    // Messages sent over one connection before it is replaced
+    private int maxMessagesPerConnection = 100;
+    // Idle connections older than this are checked with NOOP before reuse
+    private Duration validateAfterIdle = Duration.ofSeconds(30);
+    // Idle connections older than this are closed rather than reused
+    private Duration idleTimeout = Duration.ofMinutes(2);
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxMessagesPerConnection() {
+        return maxMessagesPerConnection;
+    }
+
+    public void setMaxMessagesPerConnection(int maxMessagesPerConnection) {
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+    }
+
+    public Duration getValidateAfterIdle() {
+        return validateAfterIdle;
+    }
+
+    public void setValidateAfterIdle(Duration validateAfterIdle) {
+        this.validateAfterIdle = validateAfterIdle;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+}
@@ -6,12 +6,16 @@
 
 package com.keiaa.safepoint.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,20 +24,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.keiaa.safepoint.model.dto.AvailableYear;
+import com.keiaa.safepoint.model.dto.ReportSearchHit;
 import com.keiaa.safepoint.model.dto.YearlyReportData;
 import com.keiaa.safepoint.model.enums.ReportStatus;
 import com.keiaa.safepoint.service.AdminService;
+import com.keiaa.safepoint.service.ReportExportService;
 import com.keiaa.safepoint.service.utility.InputSanitizer;
 
 @Controller
 public class AdminController {
 
+    private static final MediaType XLSX_MEDIA_TYPE =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
     @Autowired
     private InputSanitizer inputSanitizer;
 
@@ -62,30 +75,44 @@ public class AdminController {
     }
 
     /**
-     * Displays all reports with their history.
+     * Displays all reports with their history, paginated by cursor.
      *
      * @param model the model to add reports to
-     * @param pageable pagination information
+     * @param after cursor to continue after (next page)
+     * @param before cursor to continue before (previous page)
+     * @param size number of reports per page
+     * @param count whether to also show the total number of reports
      * @return the name of the view template to render
      */
     @GetMapping("/admin/report")
     @PreAuthorize("hasRole('ADMIN')")
-    public String showAdminReports(Model model, @PageableDefault(size = 12, sort = "timestamp") Pageable pageable) {
-        model.addAttribute("reportsPage", adminService.getAllReportsWithHistory(pageable));
+    public String showAdminReports(Model model,
+                                   @RequestParam(value = "after", required = false) String after,
+                                   @RequestParam(value = "before", required = false) String before,
+                                   @RequestParam(value = "size", defaultValue = "12") int size,
+                                   @RequestParam(value = "count", defaultValue = "false") boolean count) {
+        model.addAttribute("reportsPage", adminService.getReportsWithHistory(after, before, size, count));
         return "admin-reports";
     }
 
     /**
-     * Displays all appointments with pagination.
+     * Displays all appointments, paginated by cursor.
      *
      * @param model the model to add appointments to
-     * @param pageable pagination information
+     * @param after cursor to continue after (next page)
+     * @param before cursor to continue before (previous page)
+     * @param size number of appointments per page
+     * @param count whether to also show the total number of appointments
      * @return the name of the view template to render
      */
     @GetMapping("/admin/appointment")
     @PreAuthorize("hasRole('ADMIN')")
-    public String showAdminAppointments(Model model, @PageableDefault(size = 12, sort = "preferredDateTime") Pageable pageable) {
-        model.addAttribute("appointmentsPage", adminService.getAllAppointmentsPaginated(pageable));
+    public String showAdminAppointments(Model model,
+                                        @RequestParam(value = "after", required = false) String after,
+                                        @RequestParam(value = "before", required = false) String before,
+                                        @RequestParam(value = "size", defaultValue = "12") int size,
+                                        @RequestParam(value = "count", defaultValue = "false") boolean count) {
+        model.addAttribute("appointmentsPage", adminService.getAppointments(after, before, size, count));
         return "admin-appointments";
     }
 
@@ -278,6 +305,23 @@ public class AdminController {
         return adminService.getAvailableYears();
     }
 
+    /**
+     * API endpoint for full-text search over reports and their history.
+     *
+     * @param query the free-text query
+     * @param page zero-based page number
+     * @param size number of results per page
+     * @return page of matching reports, best matches first
+     */
+    @GetMapping("/admin/reports/search")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN')")
+    public PagedModel<ReportSearchHit> searchReports(@RequestParam("q") String query,
+                                                     @RequestParam(value = "page", defaultValue = "0") int page,
+                                                     @RequestParam(value = "size", defaultValue = "12") int size) {
+        return new PagedModel<>(adminService.searchReports(query, page, size));
+    }
+
     /**
      * Displays report generation page with available years.
      *
@@ -306,4 +350,41 @@ public class AdminController {
         model.addAttribute("reportData", reportData);
         return "report-generation";
     }
+
+    /**
+     * Streams one dataset of a year's report data as CSV.
+     *
+     * @param year the year in "YYYY" format
+     * @param dataset reports, appointments or summary
+     * @return the CSV, written while the rows are read
+     */
+    @GetMapping("/admin/reports/export/{year:\\d{4}}/{dataset:reports|appointments|summary}.csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@PathVariable("year") String year,
+                                                           @PathVariable("dataset") String dataset) {
+        StreamingResponseBody body = out -> reportExportService.writeCsv(year, dataset, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("safepoint-" + year + "-" + dataset + ".csv").build().toString())
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    /**
+     * Streams a year's report data as an XLSX workbook with summary, report
+     * and appointment sheets.
+     *
+     * @param year the year in "YYYY" format
+     * @return the workbook, written while the rows are read
+     */
+    @GetMapping("/admin/reports/export/{year:\\d{4}}.xlsx")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(@PathVariable("year") String year) {
+        StreamingResponseBody body = out -> reportExportService.writeXlsx(year, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("safepoint-" + year + ".xlsx").build().toString())
+                .contentType(XLSX_MEDIA_TYPE)
+                .body(body);
+    }
 }
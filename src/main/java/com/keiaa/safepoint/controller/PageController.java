@@ -6,25 +6,30 @@
 
 package com.keiaa.safepoint.controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.keiaa.safepoint.model.Appointment;
 import com.keiaa.safepoint.model.Report;
 import com.keiaa.safepoint.repository.AppointmentRepository;
 import com.keiaa.safepoint.repository.ReportRepository;
+import com.keiaa.safepoint.service.utility.DerivativeService;
+import com.keiaa.safepoint.service.utility.FileDownloadService;
 import com.keiaa.safepoint.service.utility.FileLoaderService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @Controller
 public class PageController {
 
@@ -37,6 +42,12 @@ public class PageController {
     @Autowired
     private FileLoaderService fileLoaderService;
 
+    @Autowired
+    private DerivativeService derivativeService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
     @GetMapping("/dashboard")
     public String showDashboard(Principal principal, Model model) {
         if (principal == null) {
@@ -54,11 +65,39 @@ public class PageController {
     }
 
     @GetMapping("/files/{filename:.+}")
-    @ResponseBody
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) {
-        Resource file = fileLoaderService.load(filename);
-        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + file.getFilename() + "\"").body(file);
+    public void serveFile(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Resource file;
+        try {
+            file = fileLoaderService.load(filename);
+        } catch (RuntimeException e) {
+            // Invalid or unknown name
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        fileDownloadService.serve(file.getFile().toPath(), "\"" + filename + "\"",
+                "attachment; filename=\"" + file.getFilename() + "\"", request, response);
+    }
+
+    @GetMapping("/files/{filename:.+}/{variant:thumb|web}")
+    public void serveDerivative(@PathVariable String filename, @PathVariable String variant,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Resource file;
+        try {
+            file = derivativeService.load(filename, DerivativeService.Variant.fromPath(variant));
+        } catch (RuntimeException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path path = file.getFile().toPath();
+        if (derivativeService.isDerivative(path)) {
+            // The derivative's name carries its size and quality, so it identifies the bytes
+            fileDownloadService.serve(path, "\"" + path.getFileName() + "\"", "inline", request, response);
+        } else {
+            // The original stood in: tagged as the original, and revalidated in
+            // case a later request gets the derivative
+            fileDownloadService.serve(path, "\"" + filename + "\"", "inline", false, request, response);
+        }
     }
 
     @GetMapping("/about")
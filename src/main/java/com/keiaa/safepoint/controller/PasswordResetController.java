@@ -36,10 +36,8 @@ public class PasswordResetController {
     public String processForgotPassword(@RequestParam String email, 
                                       HttpServletRequest request, 
                                       Model model) {
-        String clientIP = getClientIP(request);
-        
-        if (!rateLimitingService.isAllowedForPasswordReset(clientIP)) {
-            model.addAttribute("error", "Too many requests. Please wait 5 minutes before trying again.");
+        if (!rateLimitingService.isAllowedForPasswordReset(request.getRemoteAddr())) {
+            model.addAttribute("error", "Too many requests. Please wait a few minutes before trying again.");
             return "forgot-password";
         }
 
@@ -94,12 +92,4 @@ public class PasswordResetController {
             return "reset-password-error";
         }
     }
-
-    private String getClientIP(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0];
-    }
 }
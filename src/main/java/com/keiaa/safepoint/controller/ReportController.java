@@ -7,6 +7,7 @@
 package com.keiaa.safepoint.controller;
 
 import java.security.Principal;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -20,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.keiaa.safepoint.exception.DailyReportLimitExceededException;
+import com.keiaa.safepoint.exception.UploadRejectedException;
 import com.keiaa.safepoint.model.Report;
 import com.keiaa.safepoint.model.Student;
 import com.keiaa.safepoint.repository.StudentRepository;
@@ -64,7 +66,8 @@ public class ReportController {
 
     @PostMapping("/submit-report")
     public String submitReport(@Valid @ModelAttribute("report") Report report, 
-                               @RequestParam("files") MultipartFile[] files, 
+                               @RequestParam(value = "files", required = false) MultipartFile[] files,
+                               @RequestParam(value = "uploadIds", required = false) List<String> uploadIds,
                                BindingResult bindingResult,
                                RedirectAttributes redirectAttributes,
                                Principal principal) {
@@ -85,10 +88,10 @@ public class ReportController {
         }
 
         try {
-            Report savedReport = reportService.submitReport(report, files);
+            Report savedReport = reportService.submitReport(report, files, uploadIds, principal.getName());
             redirectAttributes.addFlashAttribute("message", "We've received your report and will review it with care. If you're unsafe right now, please contact campus security or emergency services first.");
             redirectAttributes.addFlashAttribute("reportId", savedReport.getReportId()); 
-        } catch (DailyReportLimitExceededException e) {
+        } catch (DailyReportLimitExceededException | UploadRejectedException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
             return "redirect:/report";
         }
@@ -14,8 +14,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 import com.keiaa.safepoint.exception.VerificationTokenException;
 import com.keiaa.safepoint.model.Student;
@@ -45,12 +43,16 @@ public class StudentController {
     }
 
     @PostMapping("/student-signup")
-    public String processSignupForm(@ModelAttribute("student") Student student, BindingResult result) {
+    public String processSignupForm(@ModelAttribute("student") Student student, BindingResult result, Model model,
+                                    HttpServletRequest request) {
         if (result.hasErrors()) {
             return "student-signup";
         }
+        if (!rateLimitingService.isAllowedForSignup(request.getRemoteAddr())) {
+            model.addAttribute("error", "Too many sign-up attempts. Please try again later.");
+            return "student-signup";
+        }
         Student savedStudent = studentService.registerStudent(student);
-        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
         String appUrl = request.getRequestURL().toString().replace(request.getRequestURI(), "");
         emailVerificationService.createVerificationToken(savedStudent, appUrl);
         return "redirect:/student-login";
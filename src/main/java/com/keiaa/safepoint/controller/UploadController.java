@@ -0,0 +1,118 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.keiaa.safepoint.exception.UploadOffsetMismatchException;
+import com.keiaa.safepoint.exception.UploadRejectedException;
+import com.keiaa.safepoint.model.ChunkedUpload;
+import com.keiaa.safepoint.service.utility.ChunkedUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resumable evidence uploads, modelled on the tus protocol: POST creates an
+ * upload, HEAD reports the offset received so far, PATCH appends a chunk
+ * at that offset, and POST .../finalize validates and stores the file. The
+ * returned id is then submitted with the report form as "uploadIds".
+ */
+@RestController
+@RequestMapping("/uploads")
+public class UploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> create(@RequestParam String filename, @RequestParam long size,
+            Principal principal) {
+        try {
+            ChunkedUpload upload = chunkedUploadService.create(principal.getName(), filename, size);
+            return ResponseEntity.created(URI.create("/uploads/" + upload.getId()))
+                    .header(UPLOAD_OFFSET, "0")
+                    .header(UPLOAD_LENGTH, String.valueOf(upload.getTotalSize()))
+                    .body(Map.of("id", upload.getId(), "offset", 0L));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @RequestMapping(path = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> offset(@PathVariable String id, Principal principal) {
+        Optional<ChunkedUpload> upload = chunkedUploadService.find(principal.getName(), id);
+        if (upload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(upload.get().getReceivedBytes()))
+                .header(UPLOAD_LENGTH, String.valueOf(upload.get().getTotalSize()))
+                .build();
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> append(@PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset, HttpServletRequest request, Principal principal)
+            throws IOException {
+        Optional<ChunkedUpload> upload = chunkedUploadService.find(principal.getName(), id);
+        if (upload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            long newOffset = chunkedUploadService.appendChunk(upload.get(), offset, request.getInputStream());
+            return ResponseEntity.noContent().header(UPLOAD_OFFSET, String.valueOf(newOffset)).build();
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET, String.valueOf(e.getCurrentOffset()))
+                    .body(Map.of("message", e.getMessage(), "offset", e.getCurrentOffset()));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/finalize")
+    public ResponseEntity<Map<String, Object>> finalizeUpload(@PathVariable String id, Principal principal) {
+        Optional<ChunkedUpload> upload = chunkedUploadService.find(principal.getName(), id);
+        if (upload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            chunkedUploadService.finalizeUpload(upload.get());
+            return ResponseEntity.ok(Map.of("id", id));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String id, Principal principal) {
+        chunkedUploadService.find(principal.getName(), id).ifPresent(chunkedUploadService::cancel);
+        return ResponseEntity.noContent().build();
+    }
+}
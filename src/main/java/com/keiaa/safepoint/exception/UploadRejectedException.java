@@ -0,0 +1,14 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.exception;
+
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One running total shown on the admin dashboard, keyed by a name such as
+ * "report.status.RESOLVED" or "report.category.Cyber". Kept up to date in the
+ * same transaction as the change it counts, and periodically reconciled
+ * against the real tables by ScheduledTasks.
+ */
+@Entity
+@Table(name = "dashboard_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardCounter {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private long total;
+}
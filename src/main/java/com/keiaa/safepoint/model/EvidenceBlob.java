@@ -0,0 +1,49 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A stored evidence file, named after the SHA-256 of its content, and how
+ * many report evidence entries reference it. Identical uploads share one
+ * blob and just bump the count.
+ */
+@Entity
+@Table(name = "evidence_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvidenceBlob {
+
+    @Id
+    private String fileName;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    // Size as uploaded; smaller sizeBytes means the upload was normalized
+    @Column(nullable = false)
+    private long originalSizeBytes;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.annotations.BatchSize;
+
+import com.keiaa.safepoint.model.enums.OutboxStatus;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "email_outbox")
+@Data
+public class OutboxEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String sender;
+
+    private String recipient;
+
+    private String subject;
+
+    // Rendered HTML body
+    private String body;
+
+    @ElementCollection
+    @CollectionTable(name = "email_outbox_attachments", joinColumns = @JoinColumn(name = "email_id"))
+    @Column(name = "file_name")
+    @BatchSize(size = 50)
+    private List<String> attachments = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    private int attempts;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    private LocalDateTime sentAt;
+
+    private String lastError;
+}
@@ -0,0 +1,38 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hits counted by all nodes for one client and rate limit policy in one
+ * fixed window. See DatabaseRateLimiter.
+ */
+@Entity
+@Table(name = "rate_limit_windows")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitWindow {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private long hits;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
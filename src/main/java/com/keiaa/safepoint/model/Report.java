@@ -9,6 +9,7 @@ package com.keiaa.safepoint.model;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.validator.constraints.URL;
 
 import com.keiaa.safepoint.model.enums.ReportStatus;
@@ -20,6 +21,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -58,7 +60,10 @@ public class Report {
     
     private LocalDateTime timestamp = LocalDateTime.now();
 
+    // Batch-initialized so a page of reports loads its evidence lists in one
+    // round trip instead of one query per card.
     @ElementCollection
+    @BatchSize(size = 50)
     private List<String> evidenceFilePaths;
 
     @URL(message = "Link should be of proper format")
@@ -67,5 +72,7 @@ public class Report {
     private ReportStatus status = ReportStatus.PENDING_REVIEW;
     
     @OneToMany(mappedBy = "report", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("timestamp DESC")
+    @BatchSize(size = 50)
     private List<ReportHistory> history;
 }
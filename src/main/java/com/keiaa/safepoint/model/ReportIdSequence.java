@@ -0,0 +1,42 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-day counter behind the index part of report IDs (the "NN" in
+ * yyMMdd-NN-xxxx). Nodes reserve blocks of indices from it under a row lock,
+ * so no two submissions can ever be handed the same index. It also counts
+ * the reports saved that day, against the daily limit.
+ */
+@Entity
+@Table(name = "report_id_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportIdSequence {
+
+    @Id
+    private LocalDate sequenceDate;
+
+    // Next index that hasn't been handed to any node yet
+    @Column(nullable = false)
+    private long nextIndex;
+
+    // Reports saved on the day; unlike indices, only counted on commit
+    @Column(nullable = false)
+    private long acceptedCount;
+}
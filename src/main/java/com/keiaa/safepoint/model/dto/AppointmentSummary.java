@@ -6,6 +6,8 @@
 
 package com.keiaa.safepoint.model.dto;
 
+import java.time.LocalDateTime;
+
 import com.keiaa.safepoint.model.enums.AppointmentStatus;
 
 import lombok.AllArgsConstructor;
@@ -16,4 +18,5 @@ import lombok.Data;
 public class AppointmentSummary {
     private Long id;
     private AppointmentStatus status;
+    private LocalDateTime preferredDateTime;
 }
@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One page of a keyset-paginated list. Unlike Spring's Page there is no page
+ * number and the total is only filled in when explicitly asked for, since
+ * counting is exactly the full-table work keyset pagination avoids.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;     // null on the last page
+    private String previousCursor; // null on the first page
+    private Long totalElements;    // null unless requested
+
+    public boolean isFirst() {
+        return previousCursor == null;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+}
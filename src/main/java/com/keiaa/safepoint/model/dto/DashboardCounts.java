@@ -0,0 +1,23 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model.dto;
+
+import java.util.Map;
+
+import com.keiaa.safepoint.model.enums.AppointmentStatus;
+import com.keiaa.safepoint.model.enums.ReportStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DashboardCounts {
+    private Map<ReportStatus, Long> reportStatusCounts;
+    private Map<String, Long> reportCategoryCounts;
+    private Map<AppointmentStatus, Long> appointmentStatusCounts;
+}
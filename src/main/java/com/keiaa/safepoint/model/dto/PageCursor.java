@@ -0,0 +1,58 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position of a row in a keyset-paginated list: the sort timestamp plus the
+ * primary key as a tie-breaker. Travels through URLs as an opaque URL-safe
+ * token so the admin list links stay short and don't expose the raw values.
+ * The timestamp is null for rows that have none.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private LocalDateTime timestamp;
+    private Long id;
+
+    public String encode() {
+        String raw = (timestamp != null ? timestamp.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}. Missing or tampered
+     * tokens decode to empty, which callers treat as "start from page one".
+     */
+    public static Optional<PageCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            String timestamp = raw.substring(0, separator);
+            return Optional.of(new PageCursor(
+                    timestamp.isEmpty() ? null : LocalDateTime.parse(timestamp),
+                    Long.parseLong(raw.substring(separator + 1))));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -6,6 +6,8 @@
 
 package com.keiaa.safepoint.model.dto;
 
+import java.time.LocalDateTime;
+
 import com.keiaa.safepoint.model.enums.ReportStatus;
 
 import lombok.AllArgsConstructor;
@@ -17,4 +19,5 @@ public class ReportSummary {
     private String reportId;
     private String category;
     private ReportStatus status;
+    private LocalDateTime timestamp;
 }
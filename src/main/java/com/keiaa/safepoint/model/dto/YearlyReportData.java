@@ -6,7 +6,6 @@
 
 package com.keiaa.safepoint.model.dto;
 
-import java.util.List;
 import java.util.Map;
 
 import com.keiaa.safepoint.model.enums.AppointmentStatus;
@@ -20,8 +19,6 @@ import lombok.Data;
 public class YearlyReportData {
     private String year;
     private String yearDisplay;
-    private List<ReportSummary> reports;
-    private List<AppointmentSummary> appointments;
     private Map<String, Long> reportCategoryCounts;
     private Map<ReportStatus, Long> reportStatusCounts;
     private Map<AppointmentStatus, Long> appointmentStatusCounts;
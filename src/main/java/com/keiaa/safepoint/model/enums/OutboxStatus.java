@@ -0,0 +1,14 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.model.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    // Gave up after the maximum number of attempts
+    DEAD
+}
@@ -8,47 +8,67 @@ package com.keiaa.safepoint.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.keiaa.safepoint.model.Appointment;
+import com.keiaa.safepoint.model.dto.AppointmentStatusCount;
+import com.keiaa.safepoint.model.dto.AppointmentSummary;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
     long countByPreferredDateTimeBefore(LocalDateTime dateTime);
 
+    @Query("SELECT new com.keiaa.safepoint.model.dto.AppointmentStatusCount(a.status, COUNT(a)) FROM Appointment a GROUP BY a.status")
+    List<AppointmentStatusCount> countByStatus();
+
     List<Appointment> findAllByOrderByPreferredDateTimeAsc();
 
     List<Appointment> findByPreferredDateTimeBetweenOrderByPreferredDateTime(LocalDateTime start, LocalDateTime end);
 
     List<Appointment> findByEmailOrderByPreferredDateTimeDesc(String email);
 
-    Page<Appointment> findAllByOrderByPreferredDateTimeAsc(Pageable pageable);
-
-    List<Appointment> findAllByPreferredDateTimeNotNull();
-    
-    default List<String> findAvailableYearMonths() {
-        return findAllByPreferredDateTimeNotNull().stream()
-                .map(apt -> {
-                    String year = String.valueOf(apt.getPreferredDateTime().getYear());
-                    String month = String.format("%02d", apt.getPreferredDateTime().getMonthValue());
-                    return year + "-" + month;
-                })
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .collect(java.util.stream.Collectors.toList());
-    }
-
-    default List<String> findAvailableYears() {
-        return findAllByPreferredDateTimeNotNull().stream()
-                .map(apt -> String.valueOf(apt.getPreferredDateTime().getYear()))
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .collect(java.util.stream.Collectors.toList());
-    }
+    // Keyset pagination for the admin list (earliest first, id breaks ties).
+    // Appointments without a date come last on every database, ordered by id;
+    // a cursor on one of them goes through the "Undated" variants.
+    @Query("SELECT a FROM Appointment a ORDER BY a.preferredDateTime ASC NULLS LAST, a.id ASC")
+    List<Appointment> findFirstPage(Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.preferredDateTime > :preferredDateTime OR (a.preferredDateTime = :preferredDateTime AND a.id > :id) OR a.preferredDateTime IS NULL ORDER BY a.preferredDateTime ASC NULLS LAST, a.id ASC")
+    List<Appointment> findPageAfter(LocalDateTime preferredDateTime, Long id, Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.preferredDateTime IS NULL AND a.id > :id ORDER BY a.id ASC")
+    List<Appointment> findPageAfterUndated(Long id, Pageable pageable);
+
+    // Walks backwards from the cursor (latest first); callers reverse the result.
+    @Query("SELECT a FROM Appointment a WHERE a.preferredDateTime < :preferredDateTime OR (a.preferredDateTime = :preferredDateTime AND a.id < :id) ORDER BY a.preferredDateTime DESC, a.id DESC")
+    List<Appointment> findPageBefore(LocalDateTime preferredDateTime, Long id, Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.preferredDateTime IS NOT NULL OR a.id < :id ORDER BY a.preferredDateTime DESC NULLS FIRST, a.id DESC")
+    List<Appointment> findPageBeforeUndated(Long id, Pageable pageable);
+
+    @Query("SELECT DISTINCT EXTRACT(YEAR FROM a.preferredDateTime) FROM Appointment a WHERE a.preferredDateTime IS NOT NULL")
+    List<Integer> findDistinctYears();
 
     long countByPreferredDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT new com.keiaa.safepoint.model.dto.AppointmentStatusCount(a.status, COUNT(a)) FROM Appointment a WHERE a.preferredDateTime >= :start AND a.preferredDateTime < :end GROUP BY a.status")
+    List<AppointmentStatusCount> countByStatusBetween(LocalDateTime start, LocalDateTime end);
+
+    // Row-level summaries for [start, end), read through a cursor in fetch-size
+    // chunks. Must be consumed inside a transaction and closed afterwards.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.keiaa.safepoint.model.dto.AppointmentSummary(a.id, a.status, a.preferredDateTime) FROM Appointment a WHERE a.preferredDateTime >= :start AND a.preferredDateTime < :end ORDER BY a.preferredDateTime")
+    Stream<AppointmentSummary> streamSummariesBetween(LocalDateTime start, LocalDateTime end);
 }
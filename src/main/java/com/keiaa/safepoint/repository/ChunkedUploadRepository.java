@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.ChunkedUpload;
+
+@Repository
+public interface ChunkedUploadRepository extends JpaRepository<ChunkedUpload, String> {
+
+    Optional<ChunkedUpload> findByIdAndOwnerEmail(String id, String ownerEmail);
+
+    long countByOwnerEmail(String ownerEmail);
+
+    // Compare-and-set on the offset, so two requests resuming the same upload can't both advance it
+    @Modifying
+    @Query("UPDATE ChunkedUpload u SET u.receivedBytes = :newOffset, u.updatedAt = :now "
+            + "WHERE u.id = :id AND u.receivedBytes = :expectedOffset AND u.storedFileName IS NULL")
+    int advanceOffset(String id, long expectedOffset, long newOffset, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ChunkedUpload u SET u.storedFileName = :storedFileName, u.storedSizeBytes = :storedSizeBytes, "
+            + "u.updatedAt = :now WHERE u.id = :id AND u.storedFileName IS NULL")
+    int markFinalized(String id, String storedFileName, long storedSizeBytes, LocalDateTime now);
+
+    List<ChunkedUpload> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
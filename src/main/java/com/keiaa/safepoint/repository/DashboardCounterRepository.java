@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.DashboardCounter;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface DashboardCounterRepository extends JpaRepository<DashboardCounter, String> {
+
+    // Applied in the database rather than read-modify-write, so two concurrent
+    // submissions can't overwrite each other's increment.
+    @Modifying
+    @Query("UPDATE DashboardCounter c SET c.total = c.total + :delta WHERE c.name = :name")
+    int increment(String name, long delta);
+
+    // Locked in name order, the same order increments take, so the two can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM DashboardCounter c ORDER BY c.name")
+    List<DashboardCounter> findAllForUpdate();
+}
@@ -0,0 +1,52 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.EvidenceBlob;
+
+@Repository
+public interface EvidenceBlobRepository extends JpaRepository<EvidenceBlob, String> {
+
+    // In-database increment so concurrent uploads of the same content can't lose a reference
+    @Modifying
+    @Query("UPDATE EvidenceBlob b SET b.refCount = b.refCount + :delta WHERE b.fileName = :fileName")
+    int addReferences(String fileName, long delta);
+
+    // Every file name referenced by a report, for the legacy evidence migration
+    @Query(value = "SELECT DISTINCT evidence_file_paths FROM report_evidence_file_paths WHERE evidence_file_paths IS NOT NULL", nativeQuery = true)
+    List<String> findReferencedFileNames();
+
+    @Query(value = "SELECT COUNT(*) FROM report_evidence_file_paths WHERE evidence_file_paths = :fileName", nativeQuery = true)
+    long countReportReferences(String fileName);
+
+    @Modifying
+    @Query(value = "UPDATE report_evidence_file_paths SET evidence_file_paths = :newName WHERE evidence_file_paths = :oldName", nativeQuery = true)
+    int renameReportReferences(String oldName, String newName);
+
+    // Queued emails attach by file name too
+    @Modifying
+    @Query(value = "UPDATE email_outbox_attachments SET file_name = :newName WHERE file_name = :oldName", nativeQuery = true)
+    int renameOutboxAttachments(String oldName, String newName);
+
+    // Content-addressed names under one shard prefix that something still needs, for the reconciliation job.
+    // Finalized uploads count too: a report may still claim them.
+    @Query(value = "SELECT evidence_file_paths FROM report_evidence_file_paths WHERE evidence_file_paths LIKE :prefix "
+            + "UNION SELECT file_name FROM email_outbox_attachments WHERE file_name LIKE :prefix "
+            + "UNION SELECT stored_file_name FROM chunked_uploads WHERE stored_file_name LIKE :prefix", nativeQuery = true)
+    List<String> findReferencedFileNamesStartingWith(String prefix);
+
+    @Modifying
+    @Query("DELETE FROM EvidenceBlob b WHERE b.fileName = :fileName AND b.refCount <= 0")
+    int deleteUnreferenced(String fileName);
+}
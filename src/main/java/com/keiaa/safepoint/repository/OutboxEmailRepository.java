@@ -0,0 +1,51 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.OutboxEmail;
+import com.keiaa.safepoint.model.enums.OutboxStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // Due messages, row-locked. Lock timeout -2 is Hibernate's SKIP LOCKED, so
+    // several nodes can poll at once without blocking on each other's batch
+    // (H2 ignores it and simply waits).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<OutboxEmail> findDueForUpdate(OutboxStatus status, LocalDateTime now, Pageable limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.sentAt = :sentAt, e.lastError = null WHERE e.id IN :ids")
+    int markSent(Collection<Long> ids, OutboxStatus status, LocalDateTime sentAt);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEmail e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(OutboxStatus status);
+
+    // Attachments go with it through ON DELETE CASCADE
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.status = :status AND e.sentAt < :cutoff")
+    int deleteSentBefore(OutboxStatus status, LocalDateTime cutoff);
+}
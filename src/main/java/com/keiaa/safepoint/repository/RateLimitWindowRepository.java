@@ -0,0 +1,33 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.RateLimitWindow;
+
+@Repository
+public interface RateLimitWindowRepository extends JpaRepository<RateLimitWindow, String> {
+
+    // In-database increment so concurrent flushes from several nodes all count
+    @Modifying
+    @Query("UPDATE RateLimitWindow w SET w.hits = w.hits + :delta WHERE w.id = :id")
+    int addHits(String id, long delta);
+
+    List<RateLimitWindow> findByIdIn(Collection<String> ids);
+
+    @Modifying
+    @Query("DELETE FROM RateLimitWindow w WHERE w.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
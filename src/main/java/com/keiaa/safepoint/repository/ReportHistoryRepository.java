@@ -6,9 +6,11 @@
 
 package com.keiaa.safepoint.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.keiaa.safepoint.model.ReportHistory;
@@ -16,4 +18,13 @@ import com.keiaa.safepoint.model.ReportHistory;
 @Repository
 public interface ReportHistoryRepository extends JpaRepository<ReportHistory, Long> {
     List<ReportHistory> findByReportIdOrderByTimestampDesc(Long reportId);
+
+    // Batched variants for list views: one query for every report on the page
+    // (or in the table) instead of one per report. The report is fetch-joined
+    // so grouping by report id doesn't trigger its own lookups.
+    @Query("SELECT h FROM ReportHistory h JOIN FETCH h.report r WHERE r.id IN :reportIds ORDER BY h.timestamp DESC")
+    List<ReportHistory> findByReportIdInOrderByTimestampDesc(Collection<Long> reportIds);
+
+    @Query("SELECT h FROM ReportHistory h JOIN FETCH h.report ORDER BY h.timestamp DESC")
+    List<ReportHistory> findAllWithReportOrderByTimestampDesc();
 }
\ No newline at end of file
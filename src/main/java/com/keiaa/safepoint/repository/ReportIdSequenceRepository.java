@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.keiaa.safepoint.model.ReportIdSequence;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ReportIdSequenceRepository extends JpaRepository<ReportIdSequence, LocalDate> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ReportIdSequence s WHERE s.sequenceDate = :sequenceDate")
+    Optional<ReportIdSequence> findForUpdate(LocalDate sequenceDate);
+
+    // Conditional in-database increment, so concurrent submissions can't both take the last place
+    @Modifying
+    @Query("UPDATE ReportIdSequence s SET s.acceptedCount = s.acceptedCount + 1 "
+            + "WHERE s.sequenceDate = :sequenceDate AND s.acceptedCount < :dailyLimit")
+    int incrementAccepted(LocalDate sequenceDate, long dailyLimit);
+}
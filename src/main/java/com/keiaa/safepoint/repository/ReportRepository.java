@@ -9,23 +9,34 @@ package com.keiaa.safepoint.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.keiaa.safepoint.model.Report;
 import com.keiaa.safepoint.model.dto.CategoryCount;
+import com.keiaa.safepoint.model.dto.ReportStatusCount;
+import com.keiaa.safepoint.model.dto.ReportSummary;
 import com.keiaa.safepoint.model.enums.ReportStatus;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Long> {
     // This method will automatically be implemented by Spring Data JPA
     // to find a Report based on its unique reportId.
     Optional<Report> findByReportId(String reportId);
 
+    // Same lookup, with the status history fetch-joined in the same query.
+    @EntityGraph(attributePaths = "history")
+    Optional<Report> findWithHistoryByReportId(String reportId);
+
     long countByTimestampBetween(LocalDateTime start, LocalDateTime end);
 
     long countByStatusIn(List<ReportStatus> statuses);
@@ -33,33 +44,45 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     @Query("SELECT new com.keiaa.safepoint.model.dto.CategoryCount(r.category, COUNT(r)) FROM Report r GROUP BY r.category")
     List<CategoryCount> countByCategory();
 
+    @Query("SELECT new com.keiaa.safepoint.model.dto.ReportStatusCount(r.status, COUNT(r)) FROM Report r GROUP BY r.status")
+    List<ReportStatusCount> countByStatus();
+
     List<Report> findTop3ByOrderByTimestampDesc();
 
     List<Report> findByEmailOrderByTimestampDesc(String email);
 
-    Page<Report> findAllByOrderByTimestampDesc(Pageable pageable);
-
-    List<Report> findAllByTimestampNotNull();
-    
-    default List<String> findAvailableYearMonths() {
-        return findAllByTimestampNotNull().stream()
-                .map(report -> {
-                    String year = String.valueOf(report.getTimestamp().getYear());
-                    String month = String.format("%02d", report.getTimestamp().getMonthValue());
-                    return year + "-" + month;
-                })
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .collect(java.util.stream.Collectors.toList());
-    }
-
-    default List<String> findAvailableYears() {
-        return findAllByTimestampNotNull().stream()
-                .map(report -> String.valueOf(report.getTimestamp().getYear()))
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .collect(java.util.stream.Collectors.toList());
-    }
+    // Keyset pagination for the admin list (newest first, id breaks ties).
+    // These return a List so no COUNT query is issued, and seeking past the
+    // cursor keeps deep pages as cheap as the first one.
+    List<Report> findAllByOrderByTimestampDescIdDesc(Pageable pageable);
+
+    @Query("SELECT r FROM Report r WHERE r.timestamp < :timestamp OR (r.timestamp = :timestamp AND r.id < :id) ORDER BY r.timestamp DESC, r.id DESC")
+    List<Report> findPageAfter(LocalDateTime timestamp, Long id, Pageable pageable);
+
+    // Walks backwards from the cursor (oldest first); callers reverse the result.
+    @Query("SELECT r FROM Report r WHERE r.timestamp > :timestamp OR (r.timestamp = :timestamp AND r.id > :id) ORDER BY r.timestamp ASC, r.id ASC")
+    List<Report> findPageBefore(LocalDateTime timestamp, Long id, Pageable pageable);
+
+    // Distinct years are computed by the database; only a handful of
+    // integers come back instead of every report entity.
+    @Query("SELECT DISTINCT EXTRACT(YEAR FROM r.timestamp) FROM Report r WHERE r.timestamp IS NOT NULL")
+    List<Integer> findDistinctYears();
 
     List<Report> findByTimestampBetweenOrderByTimestamp(LocalDateTime start, LocalDateTime end);
+
+    // Yearly report aggregates, grouped by the database over [start, end)
+    @Query("SELECT new com.keiaa.safepoint.model.dto.ReportStatusCount(r.status, COUNT(r)) FROM Report r WHERE r.timestamp >= :start AND r.timestamp < :end GROUP BY r.status")
+    List<ReportStatusCount> countByStatusBetween(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT new com.keiaa.safepoint.model.dto.CategoryCount(r.category, COUNT(r)) FROM Report r WHERE r.timestamp >= :start AND r.timestamp < :end GROUP BY r.category")
+    List<CategoryCount> countByCategoryBetween(LocalDateTime start, LocalDateTime end);
+
+    // Row-level summaries for [start, end), read through a cursor in fetch-size
+    // chunks. Must be consumed inside a transaction and closed afterwards.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.keiaa.safepoint.model.dto.ReportSummary(r.reportId, r.category, r.status, r.timestamp) FROM Report r WHERE r.timestamp >= :start AND r.timestamp < :end ORDER BY r.timestamp")
+    Stream<ReportSummary> streamSummariesBetween(LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalField;
 import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -19,19 +21,31 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.keiaa.safepoint.model.Admin;
 import com.keiaa.safepoint.model.Appointment;
 import com.keiaa.safepoint.model.Report;
 import com.keiaa.safepoint.model.ReportHistory;
+import com.keiaa.safepoint.model.dto.AppointmentStatusCount;
 import com.keiaa.safepoint.model.dto.AppointmentSummary;
 import com.keiaa.safepoint.model.dto.AvailableYear;
+import com.keiaa.safepoint.model.dto.CategoryCount;
+import com.keiaa.safepoint.model.dto.CursorPage;
+import com.keiaa.safepoint.model.dto.DashboardCounts;
+import com.keiaa.safepoint.model.dto.PageCursor;
+import com.keiaa.safepoint.model.dto.ReportSearchHit;
+import com.keiaa.safepoint.model.dto.ReportStatusCount;
 import com.keiaa.safepoint.model.dto.ReportSummary;
 import com.keiaa.safepoint.model.dto.YearlyReportData;
 import com.keiaa.safepoint.model.enums.AppointmentStatus;
@@ -40,11 +54,14 @@ import com.keiaa.safepoint.repository.AdminRepository;
 import com.keiaa.safepoint.repository.AppointmentRepository;
 import com.keiaa.safepoint.repository.ReportHistoryRepository;
 import com.keiaa.safepoint.repository.ReportRepository;
+import com.keiaa.safepoint.service.utility.AvailableYearIndex;
 import com.keiaa.safepoint.service.utility.EmailService;
 
 @Service
 public class AdminService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private ReportRepository reportRepository;
 
@@ -60,6 +77,15 @@ public class AdminService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Autowired
+    private AvailableYearIndex availableYearIndex;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
     /**
      * Gets dashboard statistics for the admin panel
      * 
@@ -67,12 +93,15 @@ public class AdminService {
      */
     public Map<String, Object> getDashboardStatistics() {
         Map<String, Object> stats = new HashMap<>();
+        DashboardCounts counts = dashboardStatisticsService.getCounts();
+        Map<ReportStatus, Long> reportStatusCounts = counts.getReportStatusCounts();
         
-        stats.put("pendingReportsCount", reportRepository.countByStatusIn(List.of(ReportStatus.PENDING_REVIEW, ReportStatus.UNDER_REVIEW)));
-        stats.put("resolvedReportsCount", reportRepository.countByStatusIn(List.of(ReportStatus.RESOLVED)));
-        stats.put("totalAppointmentsCount", appointmentRepository.count());
-        stats.put("resolvedAppointmentsCount", appointmentRepository.countByPreferredDateTimeBefore(LocalDateTime.now()));
-        stats.put("categoryCounts", reportRepository.countByCategory());
+        stats.put("pendingReportsCount", reportStatusCounts.get(ReportStatus.PENDING_REVIEW) + reportStatusCounts.get(ReportStatus.UNDER_REVIEW));
+        stats.put("resolvedReportsCount", reportStatusCounts.get(ReportStatus.RESOLVED));
+        stats.put("totalAppointmentsCount", counts.getAppointmentStatusCounts().values().stream().mapToLong(Long::longValue).sum());
+        stats.put("categoryCounts", counts.getReportCategoryCounts().entrySet().stream()
+                .map(entry -> new CategoryCount(entry.getKey(), entry.getValue()))
+                .toList());
         stats.put("recentReports", reportRepository.findTop3ByOrderByTimestampDesc());
         
         return stats;
@@ -95,32 +124,59 @@ public class AdminService {
      */
     public List<Report> getAllReportsWithHistory() {
         List<Report> reports = reportRepository.findAll();
-        
-        // Fetch history for each report
-        for (Report report : reports) {
-            List<ReportHistory> history = reportHistoryRepository.findByReportIdOrderByTimestampDesc(report.getId());
-            report.setHistory(history);
-        }
-        
+        attachHistory(reports, reportHistoryRepository.findAllWithReportOrderByTimestampDesc());
         return reports;
     }
 
     /**
-     * Gets paginated reports with their associated history
+     * Gets a keyset-paginated slice of reports (newest first) with their history
      * 
-     * @param pageable pagination information
-     * @return Page of reports with history
+     * @param after cursor of the last report on the previous page, or null
+     * @param before cursor of the first report on the following page, or null
+     * @param size number of reports per page
+     * @param includeTotal whether to also run a COUNT over the whole table
+     * @return Page of reports with history and cursors to the adjacent pages
      */
-    public Page<Report> getAllReportsWithHistory(Pageable pageable) {
-        Page<Report> reportsPage = reportRepository.findAllByOrderByTimestampDesc(pageable);
-        
-        // Fetch history for each report
-        reportsPage.getContent().forEach(report -> {
-            List<ReportHistory> history = reportHistoryRepository.findByReportIdOrderByTimestampDesc(report.getId());
-            report.setHistory(history);
-        });
+    public CursorPage<Report> getReportsWithHistory(String after, String before, int size, boolean includeTotal) {
+        int pageSize = clampPageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        // Reports are always stamped on creation, so an undated cursor can only be forged
+        Optional<PageCursor> afterCursor = PageCursor.decode(after).filter(cursor -> cursor.getTimestamp() != null);
+        Optional<PageCursor> beforeCursor = PageCursor.decode(before).filter(cursor -> cursor.getTimestamp() != null);
+
+        List<Report> rows;
+        if (beforeCursor.isPresent()) {
+            rows = reportRepository.findPageBefore(beforeCursor.get().getTimestamp(), beforeCursor.get().getId(), limit);
+        } else if (afterCursor.isPresent()) {
+            rows = reportRepository.findPageAfter(afterCursor.get().getTimestamp(), afterCursor.get().getId(), limit);
+        } else {
+            rows = reportRepository.findAllByOrderByTimestampDescIdDesc(limit);
+        }
+
+        CursorPage<Report> page = toCursorPage(rows, pageSize, beforeCursor.isPresent(), afterCursor.isPresent(),
+                report -> new PageCursor(report.getTimestamp(), report.getId()),
+                includeTotal ? reportRepository.count() : null);
+
+        List<Long> reportIds = page.getContent().stream()
+                .map(Report::getId)
+                .toList();
+        if (!reportIds.isEmpty()) {
+            attachHistory(page.getContent(), reportHistoryRepository.findByReportIdInOrderByTimestampDesc(reportIds));
+        }
+
+        return page;
+    }
+
+    /**
+     * Distributes a batch of history records (already newest-first) onto the
+     * reports they belong to, so list views cost one history query in total.
+     */
+    private void attachHistory(List<Report> reports, List<ReportHistory> histories) {
+        Map<Long, List<ReportHistory>> historyByReportId = histories.stream()
+                .collect(Collectors.groupingBy(history -> history.getReport().getId()));
         
-        return reportsPage;
+        reports.forEach(report -> report.setHistory(
+                historyByReportId.getOrDefault(report.getId(), new ArrayList<>())));
     }
 
     /**
@@ -141,13 +197,85 @@ public class AdminService {
     }
 
     /**
-     * Gets paginated appointments
+     * Gets a keyset-paginated slice of appointments (earliest first)
+     * 
+     * @param after cursor of the last appointment on the previous page, or null
+     * @param before cursor of the first appointment on the following page, or null
+     * @param size number of appointments per page
+     * @param includeTotal whether to also run a COUNT over the whole table
+     * @return Page of appointments with cursors to the adjacent pages
+     */
+    public CursorPage<Appointment> getAppointments(String after, String before, int size, boolean includeTotal) {
+        int pageSize = clampPageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        Optional<PageCursor> afterCursor = PageCursor.decode(after);
+        Optional<PageCursor> beforeCursor = PageCursor.decode(before);
+
+        // Appointments without a date sort after all others
+        List<Appointment> rows;
+        if (beforeCursor.isPresent()) {
+            PageCursor cursor = beforeCursor.get();
+            rows = cursor.getTimestamp() == null
+                    ? appointmentRepository.findPageBeforeUndated(cursor.getId(), limit)
+                    : appointmentRepository.findPageBefore(cursor.getTimestamp(), cursor.getId(), limit);
+        } else if (afterCursor.isPresent()) {
+            PageCursor cursor = afterCursor.get();
+            rows = cursor.getTimestamp() == null
+                    ? appointmentRepository.findPageAfterUndated(cursor.getId(), limit)
+                    : appointmentRepository.findPageAfter(cursor.getTimestamp(), cursor.getId(), limit);
+        } else {
+            rows = appointmentRepository.findFirstPage(limit);
+        }
+
+        return toCursorPage(rows, pageSize, beforeCursor.isPresent(), afterCursor.isPresent(),
+                appointment -> new PageCursor(appointment.getPreferredDateTime(), appointment.getId()),
+                includeTotal ? appointmentRepository.count() : null);
+    }
+
+    /**
+     * Builds a cursor page from rows fetched with one extra element, which is
+     * only used to tell whether another page exists in the fetch direction.
+     * Backward fetches come back in reverse display order and are flipped here.
+     */
+    private <T> CursorPage<T> toCursorPage(List<T> rows, int pageSize, boolean backward, boolean fromCursor,
+                                           Function<T, PageCursor> cursorOf, Long totalElements) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> content = new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageSize)));
+
+        String previousCursor = null;
+        String nextCursor = null;
+        if (backward) {
+            Collections.reverse(content);
+            if (!content.isEmpty()) {
+                previousCursor = hasMore ? cursorOf.apply(content.get(0)).encode() : null;
+                nextCursor = cursorOf.apply(content.get(content.size() - 1)).encode();
+            }
+        } else if (!content.isEmpty()) {
+            previousCursor = fromCursor ? cursorOf.apply(content.get(0)).encode() : null;
+            nextCursor = hasMore ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        }
+
+        return new CursorPage<>(content, pageSize, nextCursor, previousCursor, totalElements);
+    }
+
+    /**
+     * Full-text search over reports, their descriptions and status history
      * 
-     * @param pageable pagination information
-     * @return Page of appointments
+     * @param query Free-text query
+     * @param page Zero-based page number
+     * @param size Page size (clamped to 1..MAX_PAGE_SIZE)
+     * @return Page of matching reports
      */
-    public Page<Appointment> getAllAppointmentsPaginated(Pageable pageable) {
-        return appointmentRepository.findAllByOrderByPreferredDateTimeAsc(pageable);
+    public Page<ReportSearchHit> searchReports(String query, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), clampPageSize(size));
+        if (query == null || query.isBlank()) {
+            return Page.empty(pageable);
+        }
+        return reportSearchService.search(query.trim(), pageable);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 
     /**
@@ -157,13 +285,8 @@ public class AdminService {
      * @return Optional containing the report if found, empty otherwise
      */
     public Optional<Report> findReportWithHistoryByReportId(String reportId) {
-        return reportRepository.findByReportId(reportId)
-                .map(report -> {
-                    // Fetch history records for the report
-                    List<ReportHistory> history = reportHistoryRepository.findByReportIdOrderByTimestampDesc(report.getId());
-                    report.setHistory(history);
-                    return report;
-                });
+        // History is fetch-joined (newest first via @OrderBy on Report.history)
+        return reportRepository.findWithHistoryByReportId(reportId);
     }
 
     /**
@@ -173,11 +296,14 @@ public class AdminService {
      * @param status The new status
      * @return true if the update was successful, false otherwise
      */
+    @Transactional
     public boolean updateReportStatus(String reportId, ReportStatus status) {
         return reportRepository.findByReportId(reportId)
             .map(report -> {
+                dashboardStatisticsService.recordReportStatusChange(report.getStatus(), status);
                 report.setStatus(status);
                 reportRepository.save(report);
+                reportSearchService.index(report);
                 return true;
             })
             .orElse(false);
@@ -191,6 +317,7 @@ public class AdminService {
      * @param description Description of the status change
      * @return true if the update was successful, false otherwise
      */
+    @Transactional
     public boolean updateReportStatusWithDescription(String reportId, ReportStatus status, String description, String username) {
         return reportRepository.findByReportId(reportId)
             .map(report -> {
@@ -205,8 +332,10 @@ public class AdminService {
                 reportHistoryRepository.save(history);
                 
                 // Update report status
+                dashboardStatisticsService.recordReportStatusChange(report.getStatus(), status);
                 report.setStatus(status);
                 reportRepository.save(report);
+                reportSearchService.index(report);
                 
                 return true;
             })
@@ -219,9 +348,11 @@ public class AdminService {
      * @param id The ID of the appointment to confirm
      * @return true if the confirmation was successful, false otherwise
      */
+    @Transactional
     public boolean confirmAppointment(Long id) {
         return appointmentRepository.findById(id)
             .map(appointment -> {
+                dashboardStatisticsService.recordAppointmentStatusChange(appointment.getStatus(), AppointmentStatus.CONFIRMED);
                 appointment.setStatus(AppointmentStatus.CONFIRMED);
                 appointmentRepository.save(appointment);
                 emailService.sendAdminConfirmationEmail(appointment);
@@ -238,6 +369,7 @@ public class AdminService {
      * @param newTime The new time for the appointment
      * @return true if the rescheduling was successful, false otherwise
      */
+    @Transactional
     public boolean rescheduleAppointment(Long id, String newDate, String newTime) {
         return appointmentRepository.findById(id)
             .map(appointment -> {
@@ -245,6 +377,8 @@ public class AdminService {
                 LocalDate date = LocalDate.parse(newDate);
                 LocalTime time = LocalTime.parse(newTime);
                 appointment.setPreferredDateTime(LocalDateTime.of(date, time));
+                availableYearIndex.recordTimestamp(appointment.getPreferredDateTime());
+                dashboardStatisticsService.recordAppointmentStatusChange(appointment.getStatus(), AppointmentStatus.CONFIRMED);
                 appointment.setStatus(AppointmentStatus.CONFIRMED);
                 appointmentRepository.save(appointment);
                 emailService.sendRescheduleEmail(appointment, oldDateTime);
@@ -259,9 +393,11 @@ public class AdminService {
      * @param id The ID of the appointment to complete
      * @return true if the completion was successful, false otherwise
      */
+    @Transactional
     public boolean completeAppointment(Long id) {
         return appointmentRepository.findById(id)
             .map(appointment -> {
+                dashboardStatisticsService.recordAppointmentStatusChange(appointment.getStatus(), AppointmentStatus.COMPLETED);
                 appointment.setStatus(AppointmentStatus.COMPLETED);
                 appointmentRepository.save(appointment);
                 emailService.sendCompletionEmail(appointment);
@@ -309,78 +445,100 @@ public class AdminService {
      * @return List of available years
      */
     public List<AvailableYear> getAvailableYears() {
-        List<String> reportYears = reportRepository.findAvailableYears();
-        List<String> appointmentYears = appointmentRepository.findAvailableYears();
-        
-        reportYears.addAll(appointmentYears);
-        List<String> allYears = reportYears.stream()
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .toList();
-        
-        return allYears.stream()
+        return availableYearIndex.getYears().stream()
                 .map(this::convertToAvailableYear)
                 .toList();
     }
 
     /**
-     * Gets yearly report data for a specific year
+     * Gets yearly report data for a specific year. All counts are grouped by
+     * the database, so memory use doesn't depend on how many rows the year has.
      * 
      * @param year The year in "YYYY" format
      * @return Yearly report data
      */
+    @Transactional(readOnly = true)
     public YearlyReportData getYearlyReportData(String year) {
-        int yearInt = Integer.parseInt(year);
-        
-        LocalDateTime startOfYear = LocalDateTime.of(yearInt, 1, 1, 0, 0);
-        LocalDateTime endOfYear = LocalDateTime.of(yearInt, 12, 31, 23, 59, 59);
-        
-        List<Report> reports = reportRepository.findByTimestampBetweenOrderByTimestamp(startOfYear, endOfYear);
-        List<ReportSummary> reportSummaries = reports.stream()
-                .map(report -> new ReportSummary(report.getReportId(), report.getCategory(), report.getStatus()))
-                .toList();
-        
-        List<Appointment> appointments = appointmentRepository.findByPreferredDateTimeBetweenOrderByPreferredDateTime(startOfYear, endOfYear);
-        List<AppointmentSummary> appointmentSummaries = appointments.stream()
-                .map(apt -> new AppointmentSummary(apt.getId(), apt.getStatus()))
-                .toList();
+        LocalDateTime startOfYear = startOfYear(year);
+        LocalDateTime startOfNextYear = startOfYear.plusYears(1);
         
         Map<String, Long> reportCategoryCounts = new HashMap<>();
-        reportSummaries.stream()
-                .collect(Collectors.groupingBy(ReportSummary::getCategory, Collectors.counting()))
-                .forEach(reportCategoryCounts::put);
+        for (CategoryCount count : reportRepository.countByCategoryBetween(startOfYear, startOfNextYear)) {
+            if (count.getCategory() != null) {
+                reportCategoryCounts.put(count.getCategory(), count.getCount());
+            }
+        }
         
         Map<ReportStatus, Long> reportStatusCounts = new EnumMap<>(ReportStatus.class);
         for (ReportStatus status : ReportStatus.values()) {
             reportStatusCounts.put(status, 0L);
         }
-        reportSummaries.stream()
-                .collect(Collectors.groupingBy(ReportSummary::getStatus, Collectors.counting()))
-                .forEach(reportStatusCounts::put);
+        for (ReportStatusCount count : reportRepository.countByStatusBetween(startOfYear, startOfNextYear)) {
+            if (count.getStatus() != null) {
+                reportStatusCounts.put(count.getStatus(), count.getCount());
+            }
+        }
         
         Map<AppointmentStatus, Long> appointmentStatusCounts = new EnumMap<>(AppointmentStatus.class);
         for (AppointmentStatus status : AppointmentStatus.values()) {
             appointmentStatusCounts.put(status, 0L);
         }
-        appointmentSummaries.stream()
-                .collect(Collectors.groupingBy(AppointmentSummary::getStatus, Collectors.counting()))
-                .forEach(appointmentStatusCounts::put);
+        for (AppointmentStatusCount count : appointmentRepository.countByStatusBetween(startOfYear, startOfNextYear)) {
+            if (count.getStatus() != null) {
+                appointmentStatusCounts.put(count.getStatus(), count.getCount());
+            }
+        }
         
+        long totalReports = reportStatusCounts.values().stream().mapToLong(Long::longValue).sum();
+        long totalAppointments = appointmentStatusCounts.values().stream().mapToLong(Long::longValue).sum();
         String yearDisplay = convertToAvailableYear(year).getDisplay();
         
         return new YearlyReportData(
                 year,
                 yearDisplay,
-                reportSummaries,
-                appointmentSummaries,
                 reportCategoryCounts,
                 reportStatusCounts,
                 appointmentStatusCounts,
-                reportSummaries.size(),
-                appointmentSummaries.size()
+                totalReports,
+                totalAppointments
         );
     }
 
+    /**
+     * Streams the per-report summaries for a year to the given consumer, in
+     * timestamp order. Rows are read through a database cursor, so only one
+     * fetch-size chunk is held in memory at a time.
+     * 
+     * @param year The year in "YYYY" format
+     * @param consumer Receives each summary
+     */
+    @Transactional(readOnly = true)
+    public void forEachReportSummary(String year, Consumer<ReportSummary> consumer) {
+        LocalDateTime startOfYear = startOfYear(year);
+        try (Stream<ReportSummary> summaries = reportRepository.streamSummariesBetween(startOfYear, startOfYear.plusYears(1))) {
+            summaries.forEach(consumer);
+        }
+    }
+
+    /**
+     * Streams the per-appointment summaries for a year to the given consumer,
+     * in date order, through a database cursor.
+     * 
+     * @param year The year in "YYYY" format
+     * @param consumer Receives each summary
+     */
+    @Transactional(readOnly = true)
+    public void forEachAppointmentSummary(String year, Consumer<AppointmentSummary> consumer) {
+        LocalDateTime startOfYear = startOfYear(year);
+        try (Stream<AppointmentSummary> summaries = appointmentRepository.streamSummariesBetween(startOfYear, startOfYear.plusYears(1))) {
+            summaries.forEach(consumer);
+        }
+    }
+
+    private LocalDateTime startOfYear(String year) {
+        return LocalDateTime.of(Integer.parseInt(year), 1, 1, 0, 0);
+    }
+
     /**
      * Converts year string to AvailableYear object
      */
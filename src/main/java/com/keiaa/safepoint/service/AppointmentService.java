@@ -11,9 +11,11 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.keiaa.safepoint.model.Appointment;
 import com.keiaa.safepoint.repository.AppointmentRepository;
+import com.keiaa.safepoint.service.utility.AvailableYearIndex;
 import com.keiaa.safepoint.service.utility.EmailService;
 
 @Service
@@ -25,14 +27,23 @@ public class AppointmentService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Autowired
+    private AvailableYearIndex availableYearIndex;
+
     /**
      * Submits a new appointment request
      * 
      * @param appointment The appointment to submit
      * @return The saved appointment
      */
+    @Transactional
     public Appointment submitAppointment(Appointment appointment) {
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        dashboardStatisticsService.recordAppointmentSubmitted(savedAppointment);
+        availableYearIndex.recordTimestamp(savedAppointment.getPreferredDateTime());
         emailService.sendAppointmentConfirmation(savedAppointment);
         return savedAppointment;
     }
@@ -0,0 +1,194 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.keiaa.safepoint.model.Appointment;
+import com.keiaa.safepoint.model.DashboardCounter;
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.model.dto.AppointmentStatusCount;
+import com.keiaa.safepoint.model.dto.CategoryCount;
+import com.keiaa.safepoint.model.dto.DashboardCounts;
+import com.keiaa.safepoint.model.dto.ReportStatusCount;
+import com.keiaa.safepoint.model.enums.AppointmentStatus;
+import com.keiaa.safepoint.model.enums.ReportStatus;
+import com.keiaa.safepoint.repository.AppointmentRepository;
+import com.keiaa.safepoint.repository.DashboardCounterRepository;
+import com.keiaa.safepoint.repository.ReportRepository;
+
+/**
+ * Maintains the dashboard_counters table so the admin dashboard can read all
+ * of its totals in one small query instead of aggregating the report and
+ * appointment tables on every load. The record* methods join the caller's
+ * transaction, so a counter only moves if the change it counts commits.
+ */
+@Service
+public class DashboardStatisticsService {
+
+    private static final String REPORT_STATUS = "report.status.";
+    private static final String REPORT_CATEGORY = "report.category.";
+    private static final String APPOINTMENT_STATUS = "appointment.status.";
+
+    @Autowired
+    private DashboardCounterRepository counterRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Transactional
+    public void recordReportSubmitted(Report report) {
+        Map<String, Long> deltas = new HashMap<>();
+        if (report.getStatus() != null) {
+            deltas.put(REPORT_STATUS + report.getStatus().name(), 1L);
+        }
+        if (report.getCategory() != null) {
+            deltas.put(REPORT_CATEGORY + report.getCategory(), 1L);
+        }
+        adjust(deltas);
+    }
+
+    @Transactional
+    public void recordReportStatusChange(ReportStatus oldStatus, ReportStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        Map<String, Long> deltas = new HashMap<>();
+        if (oldStatus != null) {
+            deltas.put(REPORT_STATUS + oldStatus.name(), -1L);
+        }
+        if (newStatus != null) {
+            deltas.put(REPORT_STATUS + newStatus.name(), 1L);
+        }
+        adjust(deltas);
+    }
+
+    @Transactional
+    public void recordAppointmentSubmitted(Appointment appointment) {
+        if (appointment.getStatus() != null) {
+            adjust(Map.of(APPOINTMENT_STATUS + appointment.getStatus().name(), 1L));
+        }
+    }
+
+    @Transactional
+    public void recordAppointmentStatusChange(AppointmentStatus oldStatus, AppointmentStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        Map<String, Long> deltas = new HashMap<>();
+        if (oldStatus != null) {
+            deltas.put(APPOINTMENT_STATUS + oldStatus.name(), -1L);
+        }
+        if (newStatus != null) {
+            deltas.put(APPOINTMENT_STATUS + newStatus.name(), 1L);
+        }
+        adjust(deltas);
+    }
+
+    /**
+     * Reads every counter in a single query.
+     *
+     * @return Current totals per report status, report category and appointment status
+     */
+    @Transactional(readOnly = true)
+    public DashboardCounts getCounts() {
+        Map<ReportStatus, Long> reportStatusCounts = new EnumMap<>(ReportStatus.class);
+        for (ReportStatus status : ReportStatus.values()) {
+            reportStatusCounts.put(status, 0L);
+        }
+        Map<AppointmentStatus, Long> appointmentStatusCounts = new EnumMap<>(AppointmentStatus.class);
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            appointmentStatusCounts.put(status, 0L);
+        }
+        Map<String, Long> reportCategoryCounts = new TreeMap<>();
+
+        for (DashboardCounter counter : counterRepository.findAll()) {
+            String name = counter.getName();
+            try {
+                if (name.startsWith(REPORT_STATUS)) {
+                    reportStatusCounts.put(ReportStatus.valueOf(name.substring(REPORT_STATUS.length())), counter.getTotal());
+                } else if (name.startsWith(APPOINTMENT_STATUS)) {
+                    appointmentStatusCounts.put(AppointmentStatus.valueOf(name.substring(APPOINTMENT_STATUS.length())), counter.getTotal());
+                } else if (name.startsWith(REPORT_CATEGORY) && counter.getTotal() > 0) {
+                    reportCategoryCounts.put(name.substring(REPORT_CATEGORY.length()), counter.getTotal());
+                }
+            } catch (IllegalArgumentException e) {
+                // Counter for an enum constant that no longer exists; the next
+                // reconciliation zeroes it out.
+            }
+        }
+
+        return new DashboardCounts(reportStatusCounts, reportCategoryCounts, appointmentStatusCounts);
+    }
+
+    /**
+     * Recomputes every counter from the source tables and overwrites the
+     * stored totals. Repairs any drift (e.g. rows changed outside the app)
+     * and seeds the table on first start.
+     *
+     * The counter rows are locked before counting: an increment from a
+     * submission still in flight waits and is applied on top of the new
+     * totals, and one that committed earlier is already in the count.
+     */
+    @Transactional
+    public void reconcile() {
+        List<DashboardCounter> counters = counterRepository.findAllForUpdate();
+
+        Map<String, Long> actual = new HashMap<>();
+        for (ReportStatus status : ReportStatus.values()) {
+            actual.put(REPORT_STATUS + status.name(), 0L);
+        }
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            actual.put(APPOINTMENT_STATUS + status.name(), 0L);
+        }
+
+        for (ReportStatusCount count : reportRepository.countByStatus()) {
+            if (count.getStatus() != null) {
+                actual.put(REPORT_STATUS + count.getStatus().name(), count.getCount());
+            }
+        }
+        for (CategoryCount count : reportRepository.countByCategory()) {
+            if (count.getCategory() != null) {
+                actual.put(REPORT_CATEGORY + count.getCategory(), count.getCount());
+            }
+        }
+        for (AppointmentStatusCount count : appointmentRepository.countByStatus()) {
+            if (count.getStatus() != null) {
+                actual.put(APPOINTMENT_STATUS + count.getStatus().name(), count.getCount());
+            }
+        }
+
+        for (DashboardCounter counter : counters) {
+            counter.setTotal(actual.getOrDefault(counter.getName(), 0L));
+            actual.remove(counter.getName());
+        }
+        actual.forEach((name, total) -> counters.add(new DashboardCounter(name, total)));
+
+        counterRepository.saveAll(counters);
+    }
+
+    // Applied in name order, the order reconcile locks the rows in
+    private void adjust(Map<String, Long> deltas) {
+        new TreeMap<>(deltas).forEach((name, delta) -> {
+            if (counterRepository.increment(name, delta) == 0) {
+                // First time this counter is touched (normally seeded by reconcile)
+                counterRepository.save(new DashboardCounter(name, delta));
+            }
+        });
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.keiaa.safepoint.model.dto.YearlyReportData;
+import com.keiaa.safepoint.model.enums.AppointmentStatus;
+import com.keiaa.safepoint.model.enums.ReportStatus;
+import com.keiaa.safepoint.service.utility.XlsxStreamWriter;
+
+/**
+ * Writes yearly report data as CSV or XLSX directly to an output stream.
+ * Rows come from AdminService's cursor-backed summary streams and are written
+ * as they are read, so memory stays flat and the output is flushed in chunks
+ * while the query is still running.
+ */
+@Service
+public class ReportExportService {
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    @Autowired
+    private AdminService adminService;
+
+    /**
+     * Writes one dataset for a year as CSV.
+     *
+     * @param year The year in "YYYY" format
+     * @param dataset "reports", "appointments" or "summary"
+     * @param out Destination stream; not closed
+     */
+    public void writeCsv(String year, String dataset, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM so Excel picks UTF-8 when opening the file directly
+        writer.write('\uFEFF');
+
+        switch (dataset) {
+            case "reports" -> {
+                writeCsvRow(writer, "Report ID", "Submitted", "Category", "Status");
+                RowCounter rows = new RowCounter();
+                adminService.forEachReportSummary(year, summary -> {
+                    writeCsvRow(writer, summary.getReportId(), format(summary.getTimestamp()),
+                            summary.getCategory(), displayName(summary.getStatus()));
+                    rows.increment(writer);
+                });
+            }
+            case "appointments" -> {
+                writeCsvRow(writer, "Appointment ID", "Scheduled", "Status");
+                RowCounter rows = new RowCounter();
+                adminService.forEachAppointmentSummary(year, summary -> {
+                    writeCsvRow(writer, String.valueOf(summary.getId()), format(summary.getPreferredDateTime()),
+                            summary.getStatus() != null ? summary.getStatus().name() : "");
+                    rows.increment(writer);
+                });
+            }
+            case "summary" -> {
+                YearlyReportData data = adminService.getYearlyReportData(year);
+                writeCsvRow(writer, "Section", "Item", "Count");
+                writeCsvRow(writer, "Totals", "Reports", String.valueOf(data.getTotalReports()));
+                writeCsvRow(writer, "Totals", "Appointments", String.valueOf(data.getTotalAppointments()));
+                for (Map.Entry<String, Long> entry : data.getReportCategoryCounts().entrySet()) {
+                    writeCsvRow(writer, "Report category", entry.getKey(), String.valueOf(entry.getValue()));
+                }
+                for (Map.Entry<ReportStatus, Long> entry : data.getReportStatusCounts().entrySet()) {
+                    writeCsvRow(writer, "Report status", entry.getKey().getDisplayName(), String.valueOf(entry.getValue()));
+                }
+                for (Map.Entry<AppointmentStatus, Long> entry : data.getAppointmentStatusCounts().entrySet()) {
+                    writeCsvRow(writer, "Appointment status", entry.getKey().name(), String.valueOf(entry.getValue()));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown export dataset: " + dataset);
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Writes a workbook with Summary, Reports and Appointments sheets.
+     *
+     * @param year The year in "YYYY" format
+     * @param out Destination stream; closed when the workbook is complete
+     */
+    public void writeXlsx(String year, OutputStream out) throws IOException {
+        try (XlsxStreamWriter workbook = new XlsxStreamWriter(out)) {
+            YearlyReportData data = adminService.getYearlyReportData(year);
+            workbook.beginSheet("Summary");
+            workbook.writeRow("Section", "Item", "Count");
+            workbook.writeRow("Totals", "Reports", data.getTotalReports());
+            workbook.writeRow("Totals", "Appointments", data.getTotalAppointments());
+            for (Map.Entry<String, Long> entry : data.getReportCategoryCounts().entrySet()) {
+                workbook.writeRow("Report category", entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<ReportStatus, Long> entry : data.getReportStatusCounts().entrySet()) {
+                workbook.writeRow("Report status", entry.getKey().getDisplayName(), entry.getValue());
+            }
+            for (Map.Entry<AppointmentStatus, Long> entry : data.getAppointmentStatusCounts().entrySet()) {
+                workbook.writeRow("Appointment status", entry.getKey().name(), entry.getValue());
+            }
+            workbook.endSheet();
+            workbook.flush();
+
+            workbook.beginSheet("Reports");
+            workbook.writeRow("Report ID", "Submitted", "Category", "Status");
+            RowCounter reportRows = new RowCounter();
+            adminService.forEachReportSummary(year, summary -> {
+                try {
+                    workbook.writeRow(summary.getReportId(), format(summary.getTimestamp()),
+                            summary.getCategory(), displayName(summary.getStatus()));
+                    reportRows.increment(workbook);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            workbook.endSheet();
+
+            workbook.beginSheet("Appointments");
+            workbook.writeRow("Appointment ID", "Scheduled", "Status");
+            RowCounter appointmentRows = new RowCounter();
+            adminService.forEachAppointmentSummary(year, summary -> {
+                try {
+                    workbook.writeRow(summary.getId(), format(summary.getPreferredDateTime()),
+                            summary.getStatus() != null ? summary.getStatus().name() : null);
+                    appointmentRows.increment(workbook);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            workbook.endSheet();
+        }
+    }
+
+    private void writeCsvRow(Writer writer, String... cells) {
+        try {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escapeCsv(cells[i]));
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Keep spreadsheet apps from evaluating user-supplied text as a formula
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private String format(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.format(DATE_TIME_FORMAT) : "";
+    }
+
+    private String displayName(ReportStatus status) {
+        return status != null ? status.getDisplayName() : "";
+    }
+
+    /**
+     * Flushes the output every FLUSH_EVERY_ROWS rows so data keeps reaching
+     * the client instead of sitting in buffers until the end.
+     */
+    private static final class RowCounter {
+        private int count;
+
+        void increment(Writer writer) {
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void increment(XlsxStreamWriter workbook) throws IOException {
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                workbook.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.model.dto.ReportSearchHit;
+
+/**
+ * Full-text search over every report: report ID, name, category, description
+ * and the descriptions of its status history entries. Backed by PostgreSQL's
+ * tsvector/GIN in production and by an in-process inverted index on H2.
+ */
+public interface ReportSearchService {
+
+    /**
+     * (Re)indexes a report. Call after the report or its history changes,
+     * inside the transaction that changed it.
+     *
+     * @param report The saved report
+     */
+    void index(Report report);
+
+    /**
+     * Finds reports in which every word of the query starts some word of
+     * the report, so "bull" finds "bullying". Punctuation only separates
+     * words; there are no phrase or exclusion operators.
+     *
+     * @param query Free-text query
+     * @param pageable Page to return
+     * @return Page of matching reports, newest first
+     */
+    Page<ReportSearchHit> search(String query, Pageable pageable);
+}
@@ -6,21 +6,29 @@
 
 package com.keiaa.safepoint.service;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.keiaa.safepoint.exception.DailyReportLimitExceededException;
 import com.keiaa.safepoint.model.Report;
 import com.keiaa.safepoint.repository.ReportRepository;
+import com.keiaa.safepoint.service.pipeline.ReportSubmittedEvent;
+import com.keiaa.safepoint.service.utility.AvailableYearIndex;
+import com.keiaa.safepoint.service.utility.ChunkedUploadService;
 import com.keiaa.safepoint.service.utility.EmailService;
 import com.keiaa.safepoint.service.utility.FileStorageService;
 import com.keiaa.safepoint.service.utility.InputSanitizer;
 import com.keiaa.safepoint.service.utility.ReportIdGenerator;
+import com.keiaa.safepoint.service.utility.ReportIndexAllocator;
 
 @Service
 public class ReportService {
@@ -31,24 +39,58 @@ public class ReportService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     private FileStorageService fileStorageService;
 
     @Autowired
     private ReportIdGenerator reportIdGenerator;
 
+    @Autowired
+    private ReportIndexAllocator reportIndexAllocator;
+
     @Autowired
     private InputSanitizer inputSanitizer;
 
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Autowired
+    private AvailableYearIndex availableYearIndex;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ReportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
-     * Submits a new report with associated files
+     * Submits a new report with associated files.
+     *
+     * The report ID is allocated before the submission's transaction opens
+     * (see ReportIndexAllocator). The daily limit is counted inside it, just
+     * before the save, so a submission rejected for its files or uploads, or
+     * rolled back, does not use up the day's capacity.
      * 
      * @param report The report to submit
      * @param files The evidence files to store with the report
+     * @param uploadIds Finalized resumable uploads to attach as evidence
+     * @param uploaderEmail The student submitting, who must own the uploads
      * @return The saved report with generated ID and file paths
      * @throws DailyReportLimitExceededException If the daily limit for reports is exceeded
      */
-    public Report submitReport(Report report, MultipartFile[] files) throws DailyReportLimitExceededException {
+    public Report submitReport(Report report, MultipartFile[] files, List<String> uploadIds, String uploaderEmail) throws DailyReportLimitExceededException {
+        LocalDate day = LocalDate.now();
+        reportIndexAllocator.checkLimit(day);
+
         report.setName(inputSanitizer.sanitizeName(report.getName()));
         report.setCategory(inputSanitizer.sanitize(report.getCategory()));
         report.setDescription(inputSanitizer.sanitizeDescription(report.getDescription()));
@@ -56,23 +98,40 @@ public class ReportService {
             report.setExternalLink(inputSanitizer.sanitizeUrl(report.getExternalLink()));
         }
 
-        report.setReportId(reportIdGenerator.generateReportId());
+        report.setReportId(reportIdGenerator.generateReportId(day));
+
+        return transactionTemplate.execute(status -> saveReport(report, files, uploadIds, uploaderEmail, day));
+    }
 
+    private Report saveReport(Report report, MultipartFile[] files, List<String> uploadIds, String uploaderEmail,
+            LocalDate day) {
         List<String> fileNames = new ArrayList<>();
-        for (MultipartFile file : files) {
-            if (!file.isEmpty()) {
-                String fileName = fileStorageService.store(file);
-                fileNames.add(fileName);
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty()) {
+                    String fileName = fileStorageService.store(file);
+                    fileNames.add(fileName);
+                }
             }
         }
+        if (uploadIds != null && !uploadIds.isEmpty()) {
+            fileNames.addAll(chunkedUploadService.claim(uploaderEmail, uploadIds));
+        }
         report.setEvidenceFilePaths(fileNames);
 
+        reportIndexAllocator.acceptReport(day);
         Report savedReport = reportRepository.save(report);
+        dashboardStatisticsService.recordReportSubmitted(savedReport);
+        availableYearIndex.recordTimestamp(savedReport.getTimestamp());
+        reportSearchService.index(savedReport);
 
         if (report.getEmail() != null && !report.getEmail().isEmpty()) {
             emailService.sendReportConfirmation(savedReport);
         }
 
+        // Delivery and other follow-up work run after commit
+        eventPublisher.publishEvent(new ReportSubmittedEvent(savedReport.getId(), savedReport.getReportId(), fileNames));
+
         return savedReport;
     }
 
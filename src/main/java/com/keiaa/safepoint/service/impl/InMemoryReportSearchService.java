@@ -0,0 +1,174 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.impl;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.model.ReportHistory;
+import com.keiaa.safepoint.model.dto.ReportSearchHit;
+import com.keiaa.safepoint.repository.ReportRepository;
+import com.keiaa.safepoint.service.ReportSearchService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * In-process inverted index used outside production (H2 has no tsvector).
+ * Built from the reports table at startup and kept current through
+ * {@link #index(Report)}. Matches the same way as
+ * PostgresReportSearchService: every query term must be a prefix of some
+ * term of the report (see SearchTerms); results are newest first.
+ */
+@Service
+@Profile("!prod")
+public class InMemoryReportSearchService implements ReportSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // term -> ids of reports containing it; sorted so prefix lookups are range scans
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, IndexedReport> documents = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        Page<Report> batch;
+        do {
+            batch = reportRepository.findAll(pageable);
+            batch.forEach(report -> apply(toDocument(report)));
+            entityManager.clear();
+            pageable = pageable.next();
+        } while (batch.hasNext());
+    }
+
+    @Override
+    public void index(Report report) {
+        IndexedReport document = toDocument(report);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only publish the change once it's actually committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(document);
+                }
+            });
+        } else {
+            apply(document);
+        }
+    }
+
+    @Override
+    public Page<ReportSearchHit> search(String query, Pageable pageable) {
+        Set<String> terms = SearchTerms.tokenize(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Set<Long> matches = null;
+        for (String term : terms) {
+            Set<Long> termMatches = new HashSet<>();
+            postings.subMap(term, true, term + Character.MAX_VALUE, true)
+                    .values()
+                    .forEach(termMatches::addAll);
+
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return Page.empty(pageable);
+            }
+        }
+
+        List<ReportSearchHit> hits = matches.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(document -> document.hit)
+                .sorted(Comparator.comparing(ReportSearchHit::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        return new PageImpl<>(hits.subList(from, to), pageable, hits.size());
+    }
+
+    private synchronized void apply(IndexedReport document) {
+        IndexedReport previous = documents.put(document.id, document);
+        if (previous != null) {
+            for (String term : previous.terms) {
+                if (!document.terms.contains(term)) {
+                    postings.computeIfPresent(term, (key, ids) -> {
+                        ids.remove(document.id);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+            }
+        }
+        for (String term : document.terms) {
+            postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(document.id);
+        }
+    }
+
+    private IndexedReport toDocument(Report report) {
+        StringJoiner text = new StringJoiner(" ");
+        Stream.of(report.getReportId(), report.getName(), report.getCategory(), report.getDescription())
+                .filter(Objects::nonNull)
+                .forEach(text::add);
+        if (report.getHistory() != null) {
+            report.getHistory().stream()
+                    .map(ReportHistory::getDescription)
+                    .filter(Objects::nonNull)
+                    .forEach(text::add);
+        }
+
+        ReportSearchHit hit = new ReportSearchHit(report.getReportId(), report.getName(), report.getCategory(),
+                report.getStatus(), report.getTimestamp());
+        return new IndexedReport(report.getId(), hit, SearchTerms.tokenize(text.toString()));
+    }
+
+    private static final class IndexedReport {
+        private final Long id;
+        private final ReportSearchHit hit;
+        private final Set<String> terms;
+
+        private IndexedReport(Long id, ReportSearchHit hit, Set<String> terms) {
+            this.id = id;
+            this.hit = hit;
+            this.terms = terms;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.model.dto.ReportSearchHit;
+import com.keiaa.safepoint.model.enums.ReportStatus;
+import com.keiaa.safepoint.service.ReportSearchService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Search backed by the reports.search_vector tsvector column and its GIN
+ * index (see db/migration/postgresql). The vector is recomputed in SQL from
+ * the current row and its history, so it can never drift from the data.
+ * Every query term must be a prefix of some lexeme (the GIN index serves
+ * :* prefix queries), and results are newest first, the same as
+ * InMemoryReportSearchService.
+ */
+@Service
+@Profile("prod")
+public class PostgresReportSearchService implements ReportSearchService {
+
+    // Keep in sync with the backfill in V4__report_search_vector.sql
+    private static final String VECTOR_EXPRESSION =
+            "setweight(to_tsvector('simple', coalesce(report_id, '') || ' ' || coalesce(name, '') || ' ' || coalesce(category, '')), 'A') || "
+            + "setweight(to_tsvector('simple', coalesce(description, '')), 'B') || "
+            + "setweight(to_tsvector('simple', coalesce((SELECT string_agg(h.description, ' ') FROM report_history h WHERE h.report_id = reports.id), '')), 'C')";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void index(Report report) {
+        // Pending status changes and history rows must be in the table first
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE reports SET search_vector = " + VECTOR_EXPRESSION + " WHERE id = :id")
+                .setParameter("id", report.getId())
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public Page<ReportSearchHit> search(String query, Pageable pageable) {
+        Set<String> terms = SearchTerms.tokenize(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String tsquery = SearchTerms.toPrefixTsquery(terms);
+
+        long total = ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM reports r WHERE r.search_vector @@ to_tsquery('simple', :query)")
+                .setParameter("query", tsquery)
+                .getSingleResult()).longValue();
+        if (total == 0) {
+            return Page.empty(pageable);
+        }
+
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT r.report_id, r.name, r.category, r.status, r.timestamp "
+                + "FROM reports r "
+                + "WHERE r.search_vector @@ to_tsquery('simple', :query) "
+                + "ORDER BY r.timestamp DESC NULLS LAST "
+                + "LIMIT :limit OFFSET :offset")
+                .setParameter("query", tsquery)
+                .setParameter("limit", pageable.getPageSize())
+                .setParameter("offset", pageable.getOffset())
+                .getResultList();
+
+        List<ReportSearchHit> hits = rows.stream()
+                .map(row -> new ReportSearchHit(
+                        (String) row[0],
+                        (String) row[1],
+                        (String) row[2],
+                        toStatus(row[3]),
+                        toLocalDateTime(row[4])))
+                .toList();
+
+        return new PageImpl<>(hits, pageable, total);
+    }
+
+    private ReportStatus toStatus(Object value) {
+        if (value == null) {
+            return null;
+        }
+        int ordinal = ((Number) value).intValue();
+        ReportStatus[] statuses = ReportStatus.values();
+        return ordinal >= 0 && ordinal < statuses.length ? statuses[ordinal] : null;
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.impl;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Splits search text into terms the same way for both report search
+ * implementations, so a query matches the same reports on H2 and on
+ * PostgreSQL: runs of letters and digits, lowercased.
+ */
+final class SearchTerms {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTerms() {
+    }
+
+    /**
+     * @param text Text to split; may be null
+     * @return The distinct terms, in order of first appearance
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Builds a to_tsquery expression that requires every term as a word
+     * prefix, e.g. "bully hall" becomes "bully:* & hall:*". Terms hold only
+     * letters and digits, so none of them can carry tsquery operators.
+     *
+     * @param terms Terms from {@link #tokenize(String)}
+     * @return The tsquery text, or an empty string if there are no terms
+     */
+    static String toPrefixTsquery(Set<String> terms) {
+        StringJoiner query = new StringJoiner(" & ");
+        for (String term : terms) {
+            query.add(term + ":*");
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.pipeline;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.keiaa.safepoint.config.PipelineProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * One asynchronous step of the submission pipeline: a bounded worker pool
+ * plus retry with exponential backoff. Tasks are keyed (by report ID) so a
+ * task already waiting or running is not queued twice, and retries are
+ * re-scheduled on the shared scheduler instead of sleeping on a worker.
+ * Tasks must therefore be safe to run again after a failure.
+ *
+ * Metrics, all tagged with the stage name:
+ * safepoint.pipeline.queue.depth, safepoint.pipeline.active,
+ * safepoint.pipeline.wait (time queued), safepoint.pipeline.duration
+ * (tagged outcome=success|failure), safepoint.pipeline.retries and
+ * safepoint.pipeline.abandoned.
+ */
+public class PipelineStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final PipelineProperties.Stage settings;
+    private final TaskScheduler retryScheduler;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final Timer waitTimer;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter retries;
+    private final Counter abandoned;
+
+    public PipelineStage(String name, PipelineProperties.Stage settings, TaskScheduler retryScheduler, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.retryScheduler = retryScheduler;
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(settings.getThreads());
+        executor.setMaxPoolSize(settings.getThreads());
+        executor.setQueueCapacity(settings.getQueueCapacity());
+        executor.setThreadNamePrefix("pipeline-" + name + "-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        Gauge.builder("safepoint.pipeline.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("safepoint.pipeline.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("stage", name)
+                .register(meterRegistry);
+        waitTimer = Timer.builder("safepoint.pipeline.wait").tag("stage", name).register(meterRegistry);
+        successTimer = Timer.builder("safepoint.pipeline.duration").tag("stage", name).tag("outcome", "success").register(meterRegistry);
+        failureTimer = Timer.builder("safepoint.pipeline.duration").tag("stage", name).tag("outcome", "failure").register(meterRegistry);
+        retries = Counter.builder("safepoint.pipeline.retries").tag("stage", name).register(meterRegistry);
+        abandoned = Counter.builder("safepoint.pipeline.abandoned").tag("stage", name).register(meterRegistry);
+    }
+
+    /**
+     * Queues a task. Ignored if a task with the same key is already pending.
+     *
+     * @param key Identifies the unit of work, e.g. the report ID
+     * @param task The work to run; may be run more than once
+     */
+    public void submit(String key, Runnable task) {
+        if (pendingKeys.add(key)) {
+            enqueue(key, task, 1);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void enqueue(String key, Runnable task, int attempt) {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(key, task, attempt, queuedAt));
+        } catch (TaskRejectedException e) {
+            // Queue full (or shutting down): treat like a failed attempt
+            retryOrAbandon(key, task, attempt, e);
+        }
+    }
+
+    private void run(String key, Runnable task, int attempt, long queuedAt) {
+        long startedAt = System.nanoTime();
+        waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+        try {
+            task.run();
+            successTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            pendingKeys.remove(key);
+        } catch (RuntimeException e) {
+            failureTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            retryOrAbandon(key, task, attempt, e);
+        }
+    }
+
+    private void retryOrAbandon(String key, Runnable task, int attempt, Exception cause) {
+        if (attempt >= settings.getMaxAttempts()) {
+            pendingKeys.remove(key);
+            abandoned.increment();
+            logger.error("Pipeline stage '{}' gave up on {} after {} attempts", name, key, attempt, cause);
+            return;
+        }
+
+        long backoffMillis = Math.min(
+                settings.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20),
+                settings.getMaxBackoff().toMillis());
+        retries.increment();
+        logger.warn("Pipeline stage '{}' failed on {} (attempt {}), retrying in {} ms: {}",
+                name, key, attempt, backoffMillis, cause.toString());
+        retryScheduler.schedule(() -> enqueue(key, task, attempt + 1), Instant.now().plusMillis(backoffMillis));
+    }
+}
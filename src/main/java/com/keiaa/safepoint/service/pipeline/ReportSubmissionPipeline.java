@@ -0,0 +1,85 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.pipeline;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.keiaa.safepoint.config.DerivativeProperties;
+import com.keiaa.safepoint.config.PipelineProperties;
+import com.keiaa.safepoint.service.utility.DerivativeService;
+import com.keiaa.safepoint.service.utility.EmailOutboxDispatcher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Post-commit work for a submitted report. The request thread only validates,
+ * stores the evidence and inserts the row; everything else runs here on
+ * bounded per-stage executors once the report is committed.
+ */
+@Component
+public class ReportSubmissionPipeline {
+
+    public static final String EMAIL_STAGE = "email";
+    public static final String DERIVATIVES_STAGE = "derivatives";
+
+    @Autowired
+    private PipelineProperties pipelineProperties;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private DerivativeProperties derivativeProperties;
+
+    @Autowired
+    private DerivativeService derivativeService;
+
+    private PipelineStage emailStage;
+    private PipelineStage derivativesStage;
+
+    @PostConstruct
+    public void start() {
+        emailStage = createStage(EMAIL_STAGE);
+        derivativesStage = createStage(DERIVATIVES_STAGE);
+    }
+
+    @PreDestroy
+    public void stop() {
+        emailStage.shutdown();
+        derivativesStage.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReportSubmitted(ReportSubmittedEvent event) {
+        // The confirmation was queued in the outbox by the submit transaction;
+        // drain it now rather than waiting for the dispatcher's next poll
+        emailStage.submit(event.getReportId(), emailOutboxDispatcher::dispatchPending);
+
+        if (derivativeProperties.isEager()) {
+            // Keyed by file, so evidence shared between reports is only processed once
+            for (String fileName : event.getEvidenceFileNames()) {
+                derivativesStage.submit(fileName, () -> derivativeService.generateAll(fileName));
+            }
+        }
+    }
+
+    private PipelineStage createStage(String name) {
+        return new PipelineStage(name, pipelineProperties.getStage(name), taskScheduler, meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.pipeline;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the submitting transaction; the pipeline picks it up once
+ * the report is committed.
+ */
+@Data
+@AllArgsConstructor
+public class ReportSubmittedEvent {
+    private Long id;
+    private String reportId;
+    private List<String> evidenceFileNames;
+}
@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.keiaa.safepoint.repository.AppointmentRepository;
+import com.keiaa.safepoint.repository.ReportRepository;
+
+/**
+ * Cached list of years that have at least one report or appointment, newest
+ * first. The set only changes when a record lands in a year it hasn't seen
+ * yet, so writers report their timestamps here and the cache is dropped just
+ * for that case (after commit, so a concurrent reload can't miss the row).
+ */
+@Component
+public class AvailableYearIndex {
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private volatile List<String> years;
+
+    public List<String> getYears() {
+        List<String> cached = years;
+        if (cached == null) {
+            cached = load();
+            years = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Notes that a record with the given timestamp was written, invalidating
+     * the cache if its year isn't already listed.
+     *
+     * @param timestamp The report timestamp or appointment date/time
+     */
+    public void recordTimestamp(LocalDateTime timestamp) {
+        List<String> cached = years;
+        if (timestamp == null || cached == null || cached.contains(String.valueOf(timestamp.getYear()))) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        years = null;
+    }
+
+    private List<String> load() {
+        TreeSet<Integer> allYears = new TreeSet<>(Comparator.reverseOrder());
+        allYears.addAll(reportRepository.findDistinctYears());
+        allYears.addAll(appointmentRepository.findDistinctYears());
+        return allYears.stream()
+                .map(String::valueOf)
+                .toList();
+    }
+}
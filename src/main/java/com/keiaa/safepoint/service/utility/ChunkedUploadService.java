@@ -0,0 +1,291 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.keiaa.safepoint.config.ChunkedUploadProperties;
+import com.keiaa.safepoint.exception.UploadOffsetMismatchException;
+import com.keiaa.safepoint.exception.UploadRejectedException;
+import com.keiaa.safepoint.model.ChunkedUpload;
+import com.keiaa.safepoint.repository.ChunkedUploadRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Resumable evidence uploads. A client creates an upload with its total
+ * size, appends chunks at the current offset (asking for the offset again
+ * after a dropped connection), then finalizes it. Chunks are written
+ * straight into data/uploads/.partial, on the same filesystem as the store,
+ * so finalizing is a validation pass and a rename. The report submission
+ * then claims finalized uploads by id.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Path partialRoot;
+
+    @Autowired
+    private ChunkedUploadProperties properties;
+
+    @Autowired
+    private ChunkedUploadRepository chunkedUploadRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private EvidenceBlobService evidenceBlobService;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ChunkedUploadService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        partialRoot = uploadLayout.getRoot().resolve(".partial");
+        try {
+            Files.createDirectories(partialRoot);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize folder for partial uploads!");
+        }
+    }
+
+    /**
+     * Starts an upload.
+     *
+     * @param ownerEmail The student uploading
+     * @param originalName The file's name on the student's device, for reference only
+     * @param totalSize The file size in bytes
+     * @return The new upload, at offset 0
+     * @throws UploadRejectedException if the size is out of bounds or the student has too many uploads open
+     */
+    public ChunkedUpload create(String ownerEmail, String originalName, long totalSize) {
+        long maxFileSize = properties.getMaxFileSize().toBytes();
+        if (totalSize <= 0 || totalSize > maxFileSize) {
+            throw new UploadRejectedException("File is too large. Maximum size is "
+                    + properties.getMaxFileSize().toMegabytes() + " MB.");
+        }
+        if (chunkedUploadRepository.countByOwnerEmail(ownerEmail) >= properties.getMaxActivePerStudent()) {
+            throw new UploadRejectedException("Too many uploads in progress. Please submit or wait before adding more.");
+        }
+
+        ChunkedUpload upload = new ChunkedUpload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setOwnerEmail(ownerEmail);
+        upload.setOriginalName(originalName == null || originalName.isBlank() ? "upload"
+                : originalName.substring(0, Math.min(originalName.length(), 255)));
+        upload.setTotalSize(totalSize);
+        upload.setCreatedAt(LocalDateTime.now());
+        upload.setUpdatedAt(upload.getCreatedAt());
+
+        try {
+            Files.createFile(partialPath(upload.getId()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start upload. Error: " + e.getMessage());
+        }
+        return chunkedUploadRepository.save(upload);
+    }
+
+    public Optional<ChunkedUpload> find(String ownerEmail, String id) {
+        return chunkedUploadRepository.findByIdAndOwnerEmail(id, ownerEmail);
+    }
+
+    /**
+     * Appends a chunk at the given offset. Whatever arrives before the
+     * connection drops is kept and counted, so the client resumes from there.
+     *
+     * @param upload The upload to append to
+     * @param offset Where the client believes the upload stands
+     * @param body The chunk's bytes
+     * @return The new offset
+     * @throws UploadOffsetMismatchException if offset is not the upload's current offset
+     * @throws UploadRejectedException if the chunk runs past the declared size or the upload is finalized
+     */
+    public long appendChunk(ChunkedUpload upload, long offset, InputStream body) {
+        if (upload.getStoredFileName() != null) {
+            throw new UploadRejectedException("Upload is already complete.");
+        }
+        if (offset != upload.getReceivedBytes()) {
+            throw new UploadOffsetMismatchException("Upload is at a different offset.", upload.getReceivedBytes());
+        }
+
+        long remaining = upload.getTotalSize() - offset;
+        long written = 0;
+        boolean overflow = false;
+        IOException interrupted = null;
+        try (FileChannel channel = FileChannel.open(partialPath(upload.getId()), StandardOpenOption.WRITE)) {
+            ReadableByteChannel input = Channels.newChannel(body);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try {
+                while (!overflow) {
+                    buffer.clear();
+                    // One byte past what is allowed, to notice a chunk that is too long
+                    buffer.limit((int) Math.min(BUFFER_SIZE, remaining - written + 1));
+                    int read = input.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    if (written + read > remaining) {
+                        overflow = true;
+                        buffer.limit((int) (remaining - written));
+                    }
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer, offset + written);
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away mid-chunk; keep what was received
+                interrupted = e;
+            }
+            // Only acknowledge bytes that are on disk
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write upload. Error: " + e.getMessage());
+        }
+
+        long newOffset = offset + written;
+        if (written > 0) {
+            Integer updated = transactionTemplate.execute(status -> chunkedUploadRepository.advanceOffset(
+                    upload.getId(), offset, newOffset, LocalDateTime.now()));
+            if (updated == null || updated == 0) {
+                long current = chunkedUploadRepository.findById(upload.getId())
+                        .map(ChunkedUpload::getReceivedBytes)
+                        .orElse(0L);
+                throw new UploadOffsetMismatchException("Upload was resumed concurrently.", current);
+            }
+        }
+        if (overflow) {
+            throw new UploadRejectedException("Chunk runs past the declared upload length.");
+        }
+        if (interrupted != null) {
+            logger.debug("Upload {} interrupted at offset {}: {}", upload.getId(), newOffset, interrupted.toString());
+        }
+        return newOffset;
+    }
+
+    /**
+     * Validates and stores a fully received upload. Idempotent, so a client
+     * that lost the response can finalize again.
+     *
+     * @param upload The upload to finalize
+     * @throws UploadRejectedException if bytes are missing or the content is not an allowed image
+     */
+    public void finalizeUpload(ChunkedUpload upload) {
+        if (upload.getStoredFileName() != null) {
+            return;
+        }
+        if (upload.getReceivedBytes() != upload.getTotalSize()) {
+            throw new UploadRejectedException("Upload is incomplete.");
+        }
+
+        FileStorageService.StoredFile stored;
+        try {
+            stored = fileStorageService.storeReceived(partialPath(upload.getId()));
+        } catch (RuntimeException e) {
+            cancel(upload);
+            throw new UploadRejectedException(e.getMessage());
+        }
+        transactionTemplate.executeWithoutResult(status -> chunkedUploadRepository.markFinalized(
+                upload.getId(), stored.getFileName(), stored.getSizeBytes(), LocalDateTime.now()));
+        upload.setStoredFileName(stored.getFileName());
+        upload.setStoredSizeBytes(stored.getSizeBytes());
+    }
+
+    /**
+     * Attaches finalized uploads to the report being submitted: each one
+     * becomes a reference to its stored file and the upload is removed.
+     * Joins the submission's transaction, so a failed submission leaves the
+     * uploads in place to retry with.
+     *
+     * @param ownerEmail The submitting student
+     * @param uploadIds Ids of finalized uploads
+     * @return The stored file names, in the given order
+     * @throws UploadRejectedException if an upload is unknown or not finalized
+     */
+    @Transactional
+    public List<String> claim(String ownerEmail, List<String> uploadIds) {
+        List<String> fileNames = new ArrayList<>();
+        for (String uploadId : uploadIds) {
+            ChunkedUpload upload = find(ownerEmail, uploadId)
+                    .orElseThrow(() -> new UploadRejectedException("An uploaded file has expired. Please attach it again."));
+            String fileName = upload.getStoredFileName();
+            if (fileName == null) {
+                throw new UploadRejectedException("An upload did not finish. Please attach it again.");
+            }
+            // Finalized before stored sizes were recorded: stored as uploaded
+            long storedSize = upload.getStoredSizeBytes() != null ? upload.getStoredSizeBytes() : upload.getTotalSize();
+            // Content-addressed name: the hash is everything before the extension
+            evidenceBlobService.addReferences(fileName, fileName.substring(0, fileName.indexOf('.')),
+                    storedSize, upload.getTotalSize(), 1);
+            chunkedUploadRepository.delete(upload);
+            fileNames.add(fileName);
+        }
+        return fileNames;
+    }
+
+    /**
+     * Abandons an upload and deletes whatever was received.
+     */
+    public void cancel(ChunkedUpload upload) {
+        deletePartial(upload.getId());
+        transactionTemplate.executeWithoutResult(status -> chunkedUploadRepository.deleteById(upload.getId()));
+    }
+
+    /**
+     * Deletes uploads untouched for longer than the expiry. Stored files of
+     * finalized but unclaimed uploads are left to the orphan reconciliation.
+     */
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getExpiry());
+        for (ChunkedUpload upload : chunkedUploadRepository.findByUpdatedAtBefore(cutoff)) {
+            cancel(upload);
+        }
+    }
+
+    private Path partialPath(String id) {
+        return partialRoot.resolve(id + ".part");
+    }
+
+    private void deletePartial(String id) {
+        try {
+            Files.deleteIfExists(partialPath(id));
+        } catch (IOException e) {
+            logger.warn("Could not delete partial upload {}: {}", id, e.toString());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.keiaa.safepoint.config.RateLimitProperties;
+import com.keiaa.safepoint.model.RateLimitWindow;
+import com.keiaa.safepoint.repository.RateLimitWindowRepository;
+
+/**
+ * Rate limiting shared by all nodes through the rate_limit_windows table,
+ * used when safepoint.rate-limit.backend is JDBC.
+ *
+ * Each policy is applied as a sliding window of one period: the hits of
+ * the current fixed window plus the share of the previous window's hits
+ * that still overlaps it. Hits are counted locally and added to the table
+ * in batches every flush interval, which also refreshes the cluster-wide
+ * counts; a request only reads the database the first time a client is
+ * seen in a window. Between flushes a node does not see the other nodes'
+ * latest hits, so a client spreading requests across n nodes can exceed
+ * the limit by at most what n - 1 nodes accept in one flush interval.
+ */
+@Service
+public class DatabaseRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseRateLimiter.class);
+    private static final int LOOKUP_BATCH_SIZE = 500;
+    // Ids have to fit the table; client keys are IP addresses, for logins followed by the username
+    private static final int MAX_CLIENT_KEY_LENGTH = 128;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private RateLimitWindowRepository rateLimitWindowRepository;
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean shrinking = new AtomicBoolean();
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public DatabaseRateLimiter(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Counts a request against the client's limit, if it is within it.
+     *
+     * @param policyName Name of the policy, part of the stored id
+     * @param policy The limit to apply
+     * @param key The client, usually its IP address
+     * @return Whether the request is allowed
+     */
+    public boolean tryAcquire(String policyName, RateLimitProperties.Policy policy, String key) {
+        return check(policyName, policy, key, true);
+    }
+
+    /**
+     * Whether the client is within its limit, without counting a request.
+     *
+     * @param policyName Name of the policy, part of the stored id
+     * @param policy The limit to apply
+     * @param key The client
+     * @return Whether one more request would be allowed
+     */
+    public boolean hasCapacity(String policyName, RateLimitProperties.Policy policy, String key) {
+        return check(policyName, policy, key, false);
+    }
+
+    private boolean check(String policyName, RateLimitProperties.Policy policy, String key, boolean acquire) {
+        String bucketKey = policyName + ':'
+                + (key.length() > MAX_CLIENT_KEY_LENGTH ? key.substring(0, MAX_CLIENT_KEY_LENGTH) : key);
+        long periodMillis = Math.max(1, policy.getPeriod().toMillis());
+        int capacity = Math.max(1, policy.getCapacity());
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            long index = now / periodMillis;
+            Window current = window(bucketKey, index, periodMillis);
+            Window previous = window(bucketKey, index - 1, periodMillis);
+
+            long pending = current.pending.get();
+            if (pending == Window.RETIRED) {
+                continue;
+            }
+            // Share of the previous window still inside the sliding window
+            double overlap = 1.0 - (double) (now % periodMillis) / periodMillis;
+            double estimate = previous.count() * overlap + current.shared + pending;
+            if (estimate + 1 > capacity) {
+                return false;
+            }
+            if (!acquire || current.pending.compareAndSet(pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds the hits counted since the last flush to the table and refreshes
+     * the cluster-wide counts of every window this node tracks. Windows no
+     * longer needed are dropped.
+     */
+    @Scheduled(fixedDelayString = "${safepoint.rate-limit.flush-interval:PT1S}")
+    public void flush() {
+        if (windows.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            List<Window> live = new ArrayList<>();
+            for (Window window : windows.values()) {
+                if (window.index < now / window.periodMillis - 1) {
+                    // Neither the current nor the previous window any more
+                    retire(window, true);
+                } else if (window.pending.get() != Window.RETIRED) {
+                    live.add(window);
+                }
+            }
+            // The same lock order on every node, so concurrent flushes cannot deadlock
+            live.sort(Comparator.comparing(window -> window.id));
+
+            Map<Window, Long> flushed = new HashMap<>();
+            for (Window window : live) {
+                long pending = window.pending.get();
+                if (pending > 0) {
+                    flushed.put(window, pending);
+                }
+            }
+            if (!flushed.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Window window : live) {
+                        Long hits = flushed.get(window);
+                        if (hits != null) {
+                            addHits(window, hits);
+                        }
+                    }
+                });
+            }
+
+            // Refreshed before the flushed hits leave pending, so they are
+            // briefly counted twice rather than not at all
+            refresh(live);
+            flushed.forEach((window, hits) -> window.pending.addAndGet(-hits));
+        } catch (DataAccessException | TransactionException e) {
+            // Hits stay pending and go with the next flush
+            logger.warn("Could not flush rate limit counters: {}", e.toString());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes windows that ended more than one period ago.
+     */
+    @Transactional
+    public void purgeExpired() {
+        rateLimitWindowRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private Window window(String bucketKey, long index, long periodMillis) {
+        String id = bucketKey + '@' + index;
+        Window window = windows.get(id);
+        if (window != null) {
+            return window;
+        }
+        if (windows.mappingCount() >= 2L * properties.getMaxKeys()) {
+            shrink();
+        }
+        // Loaded before publishing, so no caller sees the window without the cluster's count
+        Window loaded = new Window(id, index, periodMillis, load(id));
+        window = windows.putIfAbsent(id, loaded);
+        return window != null ? window : loaded;
+    }
+
+    private long load(String id) {
+        try {
+            return rateLimitWindowRepository.findById(id).map(RateLimitWindow::getHits).orElse(0L);
+        } catch (DataAccessException e) {
+            // Counted from zero locally; the next successful flush catches up
+            logger.warn("Could not read rate limit window {}: {}", id, e.toString());
+            return 0;
+        }
+    }
+
+    private void addHits(Window window, long hits) {
+        if (rateLimitWindowRepository.addHits(window.id, hits) == 0) {
+            createRow(window);
+            rateLimitWindowRepository.addHits(window.id, hits);
+        }
+    }
+
+    // Created empty in its own transaction: if another node wins the insert,
+    // only this throwaway transaction fails
+    private void createRow(Window window) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli((window.index + 2) * window.periodMillis), ZoneId.systemDefault());
+        try {
+            newTransaction.executeWithoutResult(status -> rateLimitWindowRepository.saveAndFlush(
+                    new RateLimitWindow(window.id, 0, expiresAt)));
+        } catch (DataIntegrityViolationException e) {
+            // Already created concurrently
+        }
+    }
+
+    private void refresh(List<Window> live) {
+        for (int from = 0; from < live.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Window> batch = live.subList(from, Math.min(live.size(), from + LOOKUP_BATCH_SIZE));
+            Map<String, Window> byId = new HashMap<>();
+            for (Window window : batch) {
+                byId.put(window.id, window);
+            }
+            for (RateLimitWindow row : rateLimitWindowRepository.findByIdIn(byId.keySet())) {
+                Window window = byId.get(row.getId());
+                if (window != null) {
+                    window.shared = row.getHits();
+                }
+            }
+        }
+    }
+
+    // Makes room for new clients by dropping windows with nothing left to
+    // flush; they are reloaded from the table if the client comes back
+    private void shrink() {
+        if (!shrinking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long target = 2L * properties.getMaxKeys() * 9 / 10;
+            for (Window window : windows.values()) {
+                if (windows.mappingCount() <= target) {
+                    break;
+                }
+                retire(window, false);
+            }
+        } finally {
+            shrinking.set(false);
+        }
+    }
+
+    // Removes a window from the map; unflushed hits are only discarded if asked to
+    private void retire(Window window, boolean discardPending) {
+        long pending = window.pending.get();
+        if (pending == Window.RETIRED || (pending != 0 && !discardPending)) {
+            return;
+        }
+        if (window.pending.compareAndSet(pending, Window.RETIRED)) {
+            windows.remove(window.id, window);
+        }
+    }
+
+    /**
+     * One client's hits in one fixed window, as last read from the table
+     * plus those counted here since.
+     */
+    private static final class Window {
+        // Marks a window being removed; callers that see it look the id up again
+        static final long RETIRED = Long.MIN_VALUE;
+
+        private final String id;
+        private final long index;
+        private final long periodMillis;
+        private final AtomicLong pending = new AtomicLong();
+        private volatile long shared;
+
+        Window(String id, long index, long periodMillis, long shared) {
+            this.id = id;
+            this.index = index;
+            this.periodMillis = periodMillis;
+            this.shared = shared;
+        }
+
+        long count() {
+            return shared + Math.max(0, pending.get());
+        }
+    }
+}
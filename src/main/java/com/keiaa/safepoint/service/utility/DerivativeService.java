@@ -0,0 +1,304 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.stereotype.Service;
+
+import com.keiaa.safepoint.config.DerivativeProperties;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Thumbnails and web-friendly JPEG versions of evidence images, cached on
+ * disk under data/derivatives. A derivative is generated the first time it
+ * is requested (or eagerly by the submission pipeline) and served from disk
+ * afterwards. The cache is capped at maxCacheSize; the least recently used
+ * files, judged by modification time, are evicted first. Originals that no
+ * ImageIO reader understands are served as they are.
+ */
+@Service
+public class DerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DerivativeService.class);
+
+    // Hits refresh the modification time at most this often, to spare a write per view
+    private static final Duration TOUCH_INTERVAL = Duration.ofMinutes(10);
+    // Eviction trims to this share of the cap so it doesn't run on every new file
+    private static final double EVICTION_TARGET = 0.9;
+
+    public enum Variant {
+        THUMB, WEB;
+
+        public static Variant fromPath(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        String directoryName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private Path root;
+    private Path incoming;
+
+    private final ConcurrentHashMap<Path, Object> generationLocks = new ConcurrentHashMap<>();
+    // Originals that could not be decoded; not retried until restart
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+    private final AtomicLong cacheSize = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    @Autowired
+    private DerivativeProperties properties;
+
+    @Autowired
+    private FileLoaderService fileLoaderService;
+
+    @Autowired
+    private ImageDownscaler imageDownscaler;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    @PostConstruct
+    public void init() {
+        root = uploadLayout.getDataRoot().resolve("derivatives");
+        incoming = root.resolve(".incoming");
+        try {
+            Files.createDirectories(incoming);
+            for (Variant variant : Variant.values()) {
+                Files.createDirectories(root.resolve(variant.directoryName()));
+            }
+            try (Stream<Path> leftovers = Files.list(incoming)) {
+                leftovers.forEach(this::deleteQuietly);
+            }
+            cacheSize.set(listCachedFiles().stream().mapToLong(CachedFile::getSize).sum());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize folder for derivatives!");
+        }
+    }
+
+    /**
+     * Loads a derivative of a stored evidence file, generating it if needed.
+     *
+     * @param filename The stored evidence file name
+     * @param variant Which derivative to load
+     * @return The derivative, or the original if it can't be downscaled
+     * @throws RuntimeException if the original can't be read or found
+     */
+    public Resource load(String filename, Variant variant) {
+        // Validates the name and checks the original exists
+        Resource original = fileLoaderService.load(filename);
+        if (unsupported.contains(filename)) {
+            return original;
+        }
+
+        Path derivative = pathFor(filename, variant);
+        try {
+            if (Files.exists(derivative)) {
+                touch(derivative);
+            } else if (!generate(original.getFile().toPath(), filename, variant, derivative)) {
+                return original;
+            }
+            return new UrlResource(derivative.toUri());
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not create {} derivative of {}: {}", variant.directoryName(), filename, e.toString());
+            return original;
+        }
+    }
+
+    /**
+     * Generates every derivative of a stored evidence file that isn't cached
+     * yet. Used by the submission pipeline so the first view is already fast.
+     *
+     * @param filename The stored evidence file name
+     */
+    public void generateAll(String filename) {
+        for (Variant variant : Variant.values()) {
+            load(filename, variant);
+        }
+    }
+
+    private boolean generate(Path source, String filename, Variant variant, Path derivative) throws IOException {
+        Object lock = generationLocks.computeIfAbsent(derivative, key -> new Object());
+        try {
+            synchronized (lock) {
+                if (Files.exists(derivative)) {
+                    // Another request generated it while this one waited
+                    return true;
+                }
+                Path tempFile = Files.createTempFile(incoming, "derivative-", ".jpg");
+                try {
+                    if (!imageDownscaler.writeJpeg(source, tempFile, maxDimension(variant), properties.getQuality())) {
+                        unsupported.add(filename);
+                        return false;
+                    }
+                    long size = Files.size(tempFile);
+                    Files.move(tempFile, derivative, StandardCopyOption.ATOMIC_MOVE);
+                    tempFile = null;
+                    cacheSize.addAndGet(size);
+                } finally {
+                    deleteQuietly(tempFile);
+                }
+            }
+        } finally {
+            generationLocks.remove(derivative, lock);
+        }
+
+        if (cacheSize.get() > properties.getMaxCacheSize().toBytes()) {
+            evict();
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the least recently used derivatives until the cache is back
+     * under EVICTION_TARGET of its cap. Only one thread evicts at a time;
+     * others carry on, since the cap is soft.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<CachedFile> files = listCachedFiles();
+            files.sort(Comparator.comparing(CachedFile::getLastModified));
+
+            long total = files.stream().mapToLong(CachedFile::getSize).sum();
+            long target = (long) (properties.getMaxCacheSize().toBytes() * EVICTION_TARGET);
+            int evicted = 0;
+            for (CachedFile file : files) {
+                if (total <= target) {
+                    break;
+                }
+                try {
+                    if (Files.deleteIfExists(file.getPath())) {
+                        evicted++;
+                    }
+                    total -= file.getSize();
+                } catch (IOException e) {
+                    logger.warn("Could not evict derivative {}: {}", file.getPath().getFileName(), e.toString());
+                }
+            }
+            cacheSize.set(total);
+            logger.info("Evicted {} derivatives; cache is now {} bytes", evicted, total);
+        } catch (IOException e) {
+            logger.warn("Could not evict derivatives: {}", e.toString());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private List<CachedFile> listCachedFiles() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        for (Variant variant : Variant.values()) {
+            try (Stream<Path> paths = Files.list(root.resolve(variant.directoryName()))) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        files.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime()));
+                    } catch (IOException e) {
+                        // Evicted concurrently
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    private void touch(Path derivative) {
+        try {
+            FileTime now = FileTime.from(Instant.now());
+            FileTime lastModified = Files.getLastModifiedTime(derivative);
+            if (lastModified.toInstant().plus(TOUCH_INTERVAL).isBefore(now.toInstant())) {
+                Files.setLastModifiedTime(derivative, now);
+            }
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+    }
+
+    /**
+     * Whether a file returned by {@link #load} is a derivative, rather than
+     * the original served in its place.
+     */
+    public boolean isDerivative(Path file) {
+        return file.toAbsolutePath().normalize().startsWith(root);
+    }
+
+    // Keep the original extension so a.png and a.jpg never share a derivative.
+    // The size and quality are part of the name, so changing them produces new
+    // files (and new ETags) while the old ones age out of the cache.
+    private Path pathFor(String filename, Variant variant) {
+        return root.resolve(variant.directoryName()).resolve(filename + "." + maxDimension(variant)
+                + "q" + Math.round(properties.getQuality() * 100) + ".jpg");
+    }
+
+    private int maxDimension(Variant variant) {
+        return variant == Variant.THUMB ? properties.getThumbnailSize() : properties.getWebSize();
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static final class CachedFile {
+        private final Path path;
+        private final long size;
+        private final FileTime lastModified;
+
+        CachedFile(Path path, long size, FileTime lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        FileTime getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.keiaa.safepoint.config.EmailOutboxProperties;
+import com.keiaa.safepoint.model.OutboxEmail;
+import com.keiaa.safepoint.model.enums.OutboxStatus;
+import com.keiaa.safepoint.service.utility.EvidenceAttachmentPolicy.Attachment;
+import com.keiaa.safepoint.service.utility.EvidenceAttachmentPolicy.PreparedAttachments;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Delivers queued mail. Each round claims a batch from the outbox and sends
+ * it over pooled SMTP connections ({@link SmtpConnectionPool}). Failures are rescheduled per message; everything
+ * else is marked sent. Works against any SMTP server, including a local
+ * stand-in such as GreenMail (point spring.mail.host/port at it).
+ *
+ * Metrics: safepoint.mail.outbox.pending, safepoint.mail.outbox.dead,
+ * safepoint.mail.outbox.lag (age of the oldest undelivered message),
+ * safepoint.mail.outbox.sent and safepoint.mail.outbox.failures.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxProperties properties;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private SmtpConnectionPool smtpConnectionPool;
+
+    @Autowired
+    private EvidenceAttachmentPolicy evidenceAttachmentPolicy;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Keeps the scheduled poll and on-demand drains from overlapping
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    private volatile long pendingCount;
+    private volatile long deadCount;
+    private volatile double lagSeconds;
+    private Counter sentCounter;
+    private Counter failureCounter;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("safepoint.mail.outbox.pending", this, d -> d.pendingCount).register(meterRegistry);
+        Gauge.builder("safepoint.mail.outbox.dead", this, d -> d.deadCount).register(meterRegistry);
+        TimeGauge.builder("safepoint.mail.outbox.lag", this, TimeUnit.SECONDS, d -> d.lagSeconds).register(meterRegistry);
+        sentCounter = Counter.builder("safepoint.mail.outbox.sent").register(meterRegistry);
+        failureCounter = Counter.builder("safepoint.mail.outbox.failures").register(meterRegistry);
+    }
+
+    /**
+     * Sends everything that is due, one batch at a time. Returns immediately
+     * if another drain is already running on this node.
+     */
+    @Scheduled(fixedDelayString = "${safepoint.mail.outbox.poll-interval:PT5S}")
+    public void dispatchPending() {
+        if (!dispatchLock.tryLock()) {
+            return;
+        }
+        try {
+            List<OutboxEmail> batch;
+            do {
+                batch = emailOutboxService.claimDue(properties.getBatchSize());
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } while (batch.size() == properties.getBatchSize());
+            refreshStatistics();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void send(List<OutboxEmail> batch) {
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+        List<PreparedAttachments> preparedAttachments = new ArrayList<>();
+        try {
+            for (OutboxEmail email : batch) {
+                try {
+                    messages.put(toMimeMessage(email, preparedAttachments), email);
+                } catch (MessagingException | RuntimeException e) {
+                    recordFailure(email, e);
+                }
+            }
+            if (messages.isEmpty()) {
+                return;
+            }
+
+            Map<MimeMessage, Exception> failed = smtpConnectionPool.send(messages.keySet());
+
+            List<Long> sentIds = new ArrayList<>();
+            for (Map.Entry<MimeMessage, OutboxEmail> entry : messages.entrySet()) {
+                Exception failure = failed.get(entry.getKey());
+                if (failure == null) {
+                    sentIds.add(entry.getValue().getId());
+                } else {
+                    recordFailure(entry.getValue(), failure);
+                }
+            }
+            emailOutboxService.markSent(sentIds);
+            sentCounter.increment(sentIds.size());
+        } finally {
+            preparedAttachments.forEach(PreparedAttachments::cleanup);
+        }
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email, List<PreparedAttachments> preparedAttachments) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        boolean multipart = !email.getAttachments().isEmpty();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, multipart);
+        helper.setFrom(email.getSender());
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+
+        if (!multipart) {
+            helper.setText(email.getBody(), true);
+            return mimeMessage;
+        }
+
+        // Previews and originals within the size budget; the rest is listed
+        PreparedAttachments prepared = evidenceAttachmentPolicy.prepare(email.getAttachments());
+        preparedAttachments.add(prepared);
+        helper.setText(evidenceAttachmentPolicy.appendOmittedNotice(email.getBody(), prepared.getOmitted()), true);
+        for (Attachment attachment : prepared.getAttachments()) {
+            // File-backed: the content is streamed from disk when the message is written
+            helper.addAttachment(attachment.getFilename(), new FileSystemResource(attachment.getPath()));
+        }
+        return mimeMessage;
+    }
+
+    private void recordFailure(OutboxEmail email, Exception cause) {
+        failureCounter.increment();
+        if (emailOutboxService.markFailed(email.getId(), cause)) {
+            logger.error("Email {} to {} dead-lettered after {} attempts", email.getId(), email.getRecipient(), email.getAttempts(), cause);
+        } else {
+            logger.warn("Email {} to {} failed (attempt {}): {}", email.getId(), email.getRecipient(), email.getAttempts(), cause.toString());
+        }
+    }
+
+    private void refreshStatistics() {
+        pendingCount = emailOutboxService.countByStatus(OutboxStatus.PENDING);
+        deadCount = emailOutboxService.countByStatus(OutboxStatus.DEAD);
+        LocalDateTime oldest = emailOutboxService.findOldestPendingCreatedAt();
+        lagSeconds = oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.keiaa.safepoint.config.EmailOutboxProperties;
+import com.keiaa.safepoint.model.OutboxEmail;
+import com.keiaa.safepoint.model.enums.OutboxStatus;
+import com.keiaa.safepoint.repository.OutboxEmailRepository;
+
+/**
+ * Persistence side of the email outbox. Enqueueing joins the caller's
+ * transaction, so a message exists exactly when the change that triggered
+ * it was committed.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private EmailOutboxProperties properties;
+
+    /**
+     * Queues a rendered message for delivery.
+     *
+     * @param sender From address
+     * @param recipient To address
+     * @param subject Subject line
+     * @param body Rendered HTML body
+     * @param attachments Stored evidence file names to attach, may be empty
+     * @return The queued message
+     */
+    @Transactional
+    public OutboxEmail enqueue(String sender, String recipient, String subject, String body, List<String> attachments) {
+        OutboxEmail email = new OutboxEmail();
+        email.setSender(sender);
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(body);
+        if (attachments != null) {
+            email.setAttachments(new ArrayList<>(attachments));
+        }
+        return outboxEmailRepository.save(email);
+    }
+
+    /**
+     * Claims up to {@code limit} due messages: counts the attempt and hides
+     * them from other dispatchers for the claim timeout, so nothing stays
+     * locked while SMTP is talked to. A dispatcher that dies mid-send simply
+     * lets the claim expire and the message is picked up again.
+     *
+     * @param limit Maximum number of messages
+     * @return Claimed messages, attachments loaded
+     */
+    @Transactional
+    public List<OutboxEmail> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEmail> due = outboxEmailRepository.findDueForUpdate(OutboxStatus.PENDING, now, PageRequest.ofSize(limit));
+        for (OutboxEmail email : due) {
+            email.setAttempts(email.getAttempts() + 1);
+            email.setNextAttemptAt(now.plus(properties.getClaimTimeout()));
+            Hibernate.initialize(email.getAttachments());
+        }
+        return due;
+    }
+
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            outboxEmailRepository.markSent(ids, OutboxStatus.SENT, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Schedules the next attempt with exponential backoff, or dead-letters
+     * the message once it has used up its attempts.
+     *
+     * @param id The message ID
+     * @param cause Why the attempt failed
+     * @return true if the message was dead-lettered
+     */
+    @Transactional
+    public boolean markFailed(Long id, Exception cause) {
+        return outboxEmailRepository.findById(id)
+            .map(email -> {
+                String error = String.valueOf(cause);
+                email.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                if (email.getAttempts() >= properties.getMaxAttempts()) {
+                    email.setStatus(OutboxStatus.DEAD);
+                    return true;
+                }
+                email.setNextAttemptAt(LocalDateTime.now().plus(backoff(email.getAttempts())));
+                return false;
+            })
+            .orElse(false);
+    }
+
+    public long countByStatus(OutboxStatus status) {
+        return outboxEmailRepository.countByStatus(status);
+    }
+
+    /**
+     * @return Creation time of the oldest undelivered message, or null if none
+     */
+    public LocalDateTime findOldestPendingCreatedAt() {
+        return outboxEmailRepository.findOldestCreatedAt(OutboxStatus.PENDING);
+    }
+
+    @Transactional
+    public int purgeSent() {
+        return outboxEmailRepository.deleteSentBefore(OutboxStatus.SENT, LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+}
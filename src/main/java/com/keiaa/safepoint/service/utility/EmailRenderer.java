@@ -0,0 +1,79 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Renders the emails/*.html templates. Uses its own template engine rather
+ * than the web one, so email templates never shadow view names and their
+ * cache settings are independent. All templates are parsed into the cache at
+ * startup (a broken template fails the boot instead of the first send),
+ * expressions are compiled by the SpEL compiler, and the shared header and
+ * footer are rendered once and inserted as ready-made markup.
+ */
+@Service
+public class EmailRenderer {
+
+    static final List<String> TEMPLATES = List.of(
+            "admin-confirmation",
+            "appointment-confirmation",
+            "completion",
+            "email-verification",
+            "password-reset",
+            "report-confirmation",
+            "reschedule");
+
+    private final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    private String header;
+    private String footer;
+
+    @PostConstruct
+    public void initialize() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("emails/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCheckExistence(true);
+        // Templates ship in the jar; parse once and keep them for good
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(null);
+
+        templateEngine.setTemplateResolver(resolver);
+        templateEngine.setEnableSpringELCompiler(true);
+
+        header = templateEngine.process("layout", Set.of("header"), new Context());
+        footer = templateEngine.process("layout", Set.of("footer"), new Context());
+
+        for (String template : TEMPLATES) {
+            render(template, new Context());
+        }
+    }
+
+    /**
+     * Renders an email template with the shared header and footer.
+     *
+     * @param template Template name under emails/, without extension
+     * @param context Template variables
+     * @return The rendered HTML
+     */
+    public String render(String template, Context context) {
+        context.setVariable("emailHeader", header);
+        context.setVariable("emailFooter", footer);
+        return templateEngine.process(template, context);
+    }
+}
@@ -8,211 +8,132 @@ package com.keiaa.safepoint.service.utility;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import com.keiaa.safepoint.model.Appointment;
 import com.keiaa.safepoint.model.Report;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
+/**
+ * Renders notification emails and queues them in the outbox. Nothing is sent
+ * here: the message is stored in the caller's transaction and delivered by
+ * {@link EmailOutboxDispatcher}, so callers never wait on SMTP and a failed
+ * send is retried instead of lost.
+ */
 @Service
 public class EmailService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private static final String FROM_ADDRESS = "your-email@gmail.com";
+    // DateTimeFormatter is immutable and thread-safe; build it once
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
 
     @Autowired
-    private FileLoaderService fileLoaderService;
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
-    private TemplateEngine templateEngine;
+    private EmailRenderer emailRenderer;
 
     public void sendAppointmentConfirmation(Appointment appointment) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(appointment.getEmail());
-            helper.setSubject("SafePoint: Counseling Session Request Received");
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
-            String formattedDateTime = appointment.getPreferredDateTime().format(formatter);
+        String recipient = appointment.getEmail();
+        String subject = "SafePoint: Counseling Session Request Received";
 
-            Context context = new Context();
-            context.setVariable("name", appointment.getName());
-            context.setVariable("preferredDateTime", formattedDateTime);
-            context.setVariable("reason", appointment.getReason());
+        String formattedDateTime = appointment.getPreferredDateTime().format(DATE_TIME_FORMAT);
 
-            String emailBody = templateEngine.process("appointment-confirmation", context);
+        Context context = new Context();
+        context.setVariable("name", appointment.getName());
+        context.setVariable("preferredDateTime", formattedDateTime);
+        context.setVariable("reason", appointment.getReason());
 
-            helper.setText(emailBody, true);
+        String emailBody = emailRenderer.render("appointment-confirmation", context);
 
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutboxService.enqueue(FROM_ADDRESS, recipient, subject, emailBody, List.of());
     }
 
     public void sendAdminConfirmationEmail(Appointment appointment) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(appointment.getEmail());
-            helper.setSubject("SafePoint: Your Counseling Session is Confirmed");
+        String recipient = appointment.getEmail();
+        String subject = "SafePoint: Your Counseling Session is Confirmed";
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
-            String formattedDateTime = appointment.getPreferredDateTime().format(formatter);
+        String formattedDateTime = appointment.getPreferredDateTime().format(DATE_TIME_FORMAT);
 
-            Context context = new Context();
-            context.setVariable("name", appointment.getName());
-            context.setVariable("preferredDateTime", formattedDateTime);
+        Context context = new Context();
+        context.setVariable("name", appointment.getName());
+        context.setVariable("preferredDateTime", formattedDateTime);
 
-            String emailBody = templateEngine.process("admin-confirmation", context);
+        String emailBody = emailRenderer.render("admin-confirmation", context);
 
-            helper.setText(emailBody, true);
-
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutboxService.enqueue(FROM_ADDRESS, recipient, subject, emailBody, List.of());
     }
 
     public void sendRescheduleEmail(Appointment appointment, LocalDateTime oldDateTime) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(appointment.getEmail());
-            helper.setSubject("SafePoint: Your Counseling Session has been Rescheduled");
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
-            String oldFormattedDateTime = oldDateTime.format(formatter);
-            String newFormattedDateTime = appointment.getPreferredDateTime().format(formatter);
-
-            Context context = new Context();
-            context.setVariable("name", appointment.getName());
-            context.setVariable("oldDateTime", oldFormattedDateTime);
-            context.setVariable("newDateTime", newFormattedDateTime);
-
-            String emailBody = templateEngine.process("reschedule", context);
-
-            helper.setText(emailBody, true);
-
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        String recipient = appointment.getEmail();
+        String subject = "SafePoint: Your Counseling Session has been Rescheduled";
+
+        String oldFormattedDateTime = oldDateTime.format(DATE_TIME_FORMAT);
+        String newFormattedDateTime = appointment.getPreferredDateTime().format(DATE_TIME_FORMAT);
+
+        Context context = new Context();
+        context.setVariable("name", appointment.getName());
+        context.setVariable("oldDateTime", oldFormattedDateTime);
+        context.setVariable("newDateTime", newFormattedDateTime);
+
+        String emailBody = emailRenderer.render("reschedule", context);
+
+        emailOutboxService.enqueue(FROM_ADDRESS, recipient, subject, emailBody, List.of());
     }
 
     public void sendCompletionEmail(Appointment appointment) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(appointment.getEmail());
-            helper.setSubject("SafePoint: Your Counseling Session is Complete");
-
-            Context context = new Context();
-            context.setVariable("name", appointment.getName());
+        String recipient = appointment.getEmail();
+        String subject = "SafePoint: Your Counseling Session is Complete";
 
-            String emailBody = templateEngine.process("completion", context);
+        Context context = new Context();
+        context.setVariable("name", appointment.getName());
 
-            helper.setText(emailBody, true);
+        String emailBody = emailRenderer.render("completion", context);
 
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutboxService.enqueue(FROM_ADDRESS, recipient, subject, emailBody, List.of());
     }
 
     public void sendReportConfirmation(Report report) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true); // true for multipart
-            helper.setFrom("your-email@gmail.com"); // Your configured email address
-            helper.setTo(report.getEmail());
-            helper.setSubject("SafePoint: Report Submitted Successfully");
-
-            Context context = new Context();
-            context.setVariable("name", report.getName());
-            context.setVariable("reportId", report.getReportId());
-            context.setVariable("category", report.getCategory());
-            context.setVariable("description", report.getDescription());
-            context.setVariable("externalLink", report.getExternalLink());
-
-            String emailBody = templateEngine.process("report-confirmation", context);
-
-            helper.setText(emailBody, true); // true for HTML
-
-            // Add attachments
-            if (report.getEvidenceFilePaths() != null) {
-                for (String filePath : report.getEvidenceFilePaths()) {
-                    Resource file = fileLoaderService.load(filePath);
-                    String filename = file.getFilename();
-                    if (filename == null) {
-                        // Fallback to the path if filename is not available
-                        filename = filePath;
-                    }
-                    helper.addAttachment(filename, file);
-                }
-            }
-
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            // Handle exception
-            e.printStackTrace();
-        }
+        String recipient = report.getEmail();
+        String subject = "SafePoint: Report Submitted Successfully";
+
+        Context context = new Context();
+        context.setVariable("name", report.getName());
+        context.setVariable("reportId", report.getReportId());
+        context.setVariable("category", report.getCategory());
+        context.setVariable("description", report.getDescription());
+        context.setVariable("externalLink", report.getExternalLink());
+
+        String emailBody = emailRenderer.render("report-confirmation", context);
+
+        // Evidence files are attached when the message is sent
+        List<String> attachments = report.getEvidenceFilePaths() != null ? report.getEvidenceFilePaths() : List.of();
+        emailOutboxService.enqueue(FROM_ADDRESS, recipient, subject, emailBody, attachments);
     }
 
     public void sendEmailVerification(String email, String name, String verificationUrl) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(email);
-            helper.setSubject("SafePoint: Please Verify Your Email Address");
-
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("verificationUrl", verificationUrl);
+        String subject = "SafePoint: Please Verify Your Email Address";
 
-            String emailBody = templateEngine.process("email-verification", context);
+        Context context = new Context();
+        context.setVariable("name", name);
+        context.setVariable("verificationUrl", verificationUrl);
 
-            helper.setText(emailBody, true);
+        String emailBody = emailRenderer.render("email-verification", context);
 
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutboxService.enqueue(FROM_ADDRESS, email, subject, emailBody, List.of());
     }
 
     public void sendPasswordResetEmail(String email, String resetLink) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false);
-            helper.setFrom("your-email@gmail.com");
-            helper.setTo(email);
-            helper.setSubject("SafePoint: Password Reset Request");
-
-            Context context = new Context();
-            context.setVariable("resetLink", resetLink);
+        String subject = "SafePoint: Password Reset Request";
 
-            String emailBody = templateEngine.process("password-reset", context);
+        Context context = new Context();
+        context.setVariable("resetLink", resetLink);
 
-            helper.setText(emailBody, true);
+        String emailBody = emailRenderer.render("password-reset", context);
 
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        emailOutboxService.enqueue(FROM_ADDRESS, email, subject, emailBody, List.of());
     }
 }
@@ -0,0 +1,181 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import com.keiaa.safepoint.config.AttachmentProperties;
+
+/**
+ * Decides what evidence goes into a report confirmation email. Small files
+ * are attached as they are; larger images are attached as downscaled JPEG
+ * previews written to temporary files. Attachments are added in order while
+ * they fit the total budget; whatever doesn't fit is listed in the body
+ * instead. Every attachment is file-backed, so the MIME body is streamed
+ * from disk when the message is written rather than held in memory.
+ */
+@Service
+public class EvidenceAttachmentPolicy {
+
+    @Autowired
+    private AttachmentProperties properties;
+
+    @Autowired
+    private FileLoaderService fileLoaderService;
+
+    @Autowired
+    private ImageDownscaler imageDownscaler;
+
+    /**
+     * Picks the attachments for a set of stored evidence files.
+     *
+     * @param filenames Stored evidence file names
+     * @return The plan; call {@link PreparedAttachments#cleanup()} once sent
+     */
+    public PreparedAttachments prepare(List<String> filenames) {
+        PreparedAttachments prepared = new PreparedAttachments();
+        long remaining = properties.getTotalBudget().toBytes();
+
+        for (String filename : filenames) {
+            Path candidate;
+            String attachmentName = filename;
+            try {
+                Path original = fileLoaderService.load(filename).getFile().toPath();
+                candidate = original;
+                if (Files.size(original) > properties.getSendOriginalBelow().toBytes()) {
+                    Path preview = createPreview(original);
+                    if (preview != null && Files.size(preview) >= Files.size(original)) {
+                        // Already well compressed; the preview buys nothing
+                        Files.deleteIfExists(preview);
+                    } else if (preview != null) {
+                        prepared.temporaryFiles.add(preview);
+                        candidate = preview;
+                        attachmentName = baseName(filename) + "-preview.jpg";
+                    }
+                }
+
+                long encodedSize = encodedSize(Files.size(candidate));
+                if (encodedSize <= remaining) {
+                    prepared.attachments.add(new Attachment(attachmentName, candidate));
+                    remaining -= encodedSize;
+                } else {
+                    prepared.omitted.add(filename);
+                }
+            } catch (IOException | RuntimeException e) {
+                prepared.omitted.add(filename);
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Adds a note listing the files that weren't attached to an HTML body.
+     *
+     * @param body Rendered HTML body
+     * @param omitted File names that were left out
+     * @return The body with the note, or unchanged if nothing was left out
+     */
+    public String appendOmittedNotice(String body, List<String> omitted) {
+        if (omitted.isEmpty()) {
+            return body;
+        }
+        StringBuilder notice = new StringBuilder()
+                .append("<div style=\"max-width: 600px; margin: 16px auto 0; font-size: 14px; color: #666;\">")
+                .append("<p>These evidence files were too large to attach. They are saved with your report:</p><ul>");
+        for (String filename : omitted) {
+            notice.append("<li>").append(HtmlUtils.htmlEscape(filename)).append("</li>");
+        }
+        notice.append("</ul></div>");
+
+        int bodyEnd = body.lastIndexOf("</body>");
+        return bodyEnd >= 0
+                ? body.substring(0, bodyEnd) + notice + body.substring(bodyEnd)
+                : body + notice;
+    }
+
+    /**
+     * Writes a JPEG preview no larger than previewMaxDimension on either side.
+     *
+     * @return The temporary preview file, or null if the format can't be read
+     */
+    private Path createPreview(Path original) throws IOException {
+        Path previewFile = Files.createTempFile("safepoint-preview-", ".jpg");
+        try {
+            if (imageDownscaler.writeJpeg(original, previewFile, properties.getPreviewMaxDimension(), properties.getPreviewQuality())) {
+                return previewFile;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(previewFile);
+            throw e;
+        }
+        Files.deleteIfExists(previewFile);
+        return null;
+    }
+
+    // Base64 turns every 3 bytes into 4
+    private long encodedSize(long size) {
+        return (size + 2) / 3 * 4;
+    }
+
+    private String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    public static final class Attachment {
+        private final String filename;
+        private final Path path;
+
+        private Attachment(String filename, Path path) {
+            this.filename = filename;
+            this.path = path;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+    }
+
+    public static final class PreparedAttachments {
+        private final List<Attachment> attachments = new ArrayList<>();
+        private final List<String> omitted = new ArrayList<>();
+        private final List<Path> temporaryFiles = new ArrayList<>();
+
+        public List<Attachment> getAttachments() {
+            return attachments;
+        }
+
+        public List<String> getOmitted() {
+            return omitted;
+        }
+
+        /**
+         * Deletes the generated previews. Call after the message was sent.
+         */
+        public void cleanup() {
+            for (Path file : temporaryFiles) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+}
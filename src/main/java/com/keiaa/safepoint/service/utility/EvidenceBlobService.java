@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.keiaa.safepoint.model.EvidenceBlob;
+import com.keiaa.safepoint.repository.EvidenceBlobRepository;
+
+/**
+ * Reference counts for content-addressed evidence files.
+ */
+@Service
+public class EvidenceBlobService {
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    public EvidenceBlobService(PlatformTransactionManager transactionManager) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Records references to a stored file. The increment joins the caller's
+     * transaction, so the count only moves if the report referencing the file
+     * is committed.
+     *
+     * @param fileName Stored file name (hash plus extension)
+     * @param sha256 Hex SHA-256 of the content
+     * @param sizeBytes File size
+     * @param originalSizeBytes Size of the upload before normalization
+     * @param references Number of references to add
+     */
+    @Transactional
+    public void addReferences(String fileName, String sha256, long sizeBytes, long originalSizeBytes, long references) {
+        if (evidenceBlobRepository.addReferences(fileName, references) == 0) {
+            createBlob(fileName, sha256, sizeBytes, originalSizeBytes);
+            evidenceBlobRepository.addReferences(fileName, references);
+        }
+    }
+
+    /**
+     * Drops the record of a file that has been deleted from disk, unless an
+     * upload of the same content has referenced it again in the meantime.
+     *
+     * @param fileName Stored file name (hash plus extension)
+     */
+    @Transactional
+    public void forget(String fileName) {
+        evidenceBlobRepository.deleteUnreferenced(fileName);
+    }
+
+    // Created with no references in its own transaction: if another upload of
+    // the same content wins the insert, only this throwaway transaction fails
+    private void createBlob(String fileName, String sha256, long sizeBytes, long originalSizeBytes) {
+        try {
+            newTransaction.executeWithoutResult(status -> evidenceBlobRepository.saveAndFlush(
+                    new EvidenceBlob(fileName, sha256, sizeBytes, originalSizeBytes, 0, LocalDateTime.now())));
+        } catch (DataIntegrityViolationException e) {
+            // Already created concurrently
+        }
+    }
+}
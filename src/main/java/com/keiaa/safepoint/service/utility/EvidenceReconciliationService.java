@@ -0,0 +1,230 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.keiaa.safepoint.config.EvidenceGcProperties;
+import com.keiaa.safepoint.repository.EvidenceBlobRepository;
+
+/**
+ * Reconciles the evidence files on disk with the names the database
+ * references (reports, queued emails and finalized uploads not yet claimed
+ * by a report). A submission that fails after its files were stored leaves
+ * them unreferenced; these orphans are moved to data/uploads/.quarantine
+ * once they are older than the grace period, and deleted after the
+ * quarantine retention. A reference whose file is missing (dangling) is
+ * restored from quarantine if it is still there, otherwise logged.
+ *
+ * The scan walks one top-level shard at a time: the shard's file names are
+ * read from disk in sorted order, directory by directory, and merge-joined
+ * against the sorted names the database references under the same prefix.
+ * Memory is bounded by the size of one shard rather than the whole store,
+ * and file checks are paced to maxFilesPerSecond.
+ */
+@Service
+public class EvidenceReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EvidenceReconciliationService.class);
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("^[0-9a-f]{2}$");
+
+    @Autowired
+    private EvidenceGcProperties properties;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    @Autowired
+    private EvidenceBlobService evidenceBlobService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Runs one reconciliation pass. Returns immediately if a pass is
+     * already running.
+     */
+    public void reconcile() {
+        if (!properties.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Pass pass = new Pass(Instant.now().minus(properties.getGracePeriod()));
+            Files.createDirectories(quarantine());
+            for (int shard = 0; shard < 256; shard++) {
+                reconcileShard(String.format("%02x", shard), pass);
+            }
+            purgeQuarantine(pass);
+            logger.info("Evidence reconciliation: {} files checked, {} quarantined, {} restored, {} missing, {} purged",
+                    pass.checked, pass.quarantined, pass.restored, pass.missing, pass.purged);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Evidence reconciliation stopped: {}", e.toString());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void reconcileShard(String shard, Pass pass) throws IOException {
+        List<String> referenced = new ArrayList<>();
+        for (String fileName : evidenceBlobRepository.findReferencedFileNamesStartingWith(shard + "%")) {
+            // Legacy names are still flat and handled by LegacyEvidenceMigration
+            if (uploadLayout.isContentAddressed(fileName)) {
+                referenced.add(fileName);
+            }
+        }
+        // Sorted here rather than in SQL, so the order matches String.compareTo whatever the collation
+        Collections.sort(referenced);
+
+        int next = 0;
+        Path shardDirectory = uploadLayout.getRoot().resolve(shard);
+        for (Path directory : sortedEntries(shardDirectory, true)) {
+            for (Path file : sortedEntries(directory, false)) {
+                String fileName = file.getFileName().toString();
+                if (!uploadLayout.isContentAddressed(fileName)) {
+                    continue;
+                }
+                while (next < referenced.size() && referenced.get(next).compareTo(fileName) < 0) {
+                    dangling(referenced.get(next++), pass);
+                }
+                if (next < referenced.size() && referenced.get(next).equals(fileName)) {
+                    next++;
+                } else {
+                    orphan(file, pass);
+                }
+                pass.pace();
+            }
+        }
+        while (next < referenced.size()) {
+            dangling(referenced.get(next++), pass);
+        }
+    }
+
+    private void orphan(Path file, Pass pass) {
+        try {
+            if (Files.getLastModifiedTime(file).toInstant().isAfter(pass.graceCutoff)) {
+                return;
+            }
+            Path target = quarantine().resolve(file.getFileName());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Retention counts from now
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            pass.quarantined++;
+        } catch (IOException e) {
+            logger.warn("Could not quarantine orphaned evidence {}: {}", file.getFileName(), e.toString());
+        }
+    }
+
+    private void dangling(String fileName, Pass pass) {
+        Path quarantined = quarantine().resolve(fileName);
+        Path target = uploadLayout.pathFor(fileName);
+        if (Files.exists(target)) {
+            // Stored by an upload while this shard was being scanned
+            return;
+        }
+        if (Files.exists(quarantined)) {
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(quarantined, target, StandardCopyOption.ATOMIC_MOVE);
+                pass.restored++;
+                return;
+            } catch (IOException e) {
+                logger.warn("Could not restore evidence {} from quarantine: {}", fileName, e.toString());
+            }
+        }
+        if (!Files.exists(uploadLayout.getRoot().resolve(fileName))) {
+            // Not waiting in the flat root for the shard migration either
+            logger.warn("Evidence {} is referenced but missing", fileName);
+            pass.missing++;
+        }
+    }
+
+    private void purgeQuarantine(Pass pass) throws IOException {
+        Instant cutoff = Instant.now().minus(properties.getQuarantineRetention());
+        for (Path file : sortedEntries(quarantine(), false)) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.delete(file);
+                    Files.deleteIfExists(uploadLayout.originalPathFor(file.getFileName().toString()));
+                    evidenceBlobService.forget(file.getFileName().toString());
+                    pass.purged++;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not purge quarantined evidence {}: {}", file.getFileName(), e.toString());
+            }
+            pass.pace();
+        }
+    }
+
+    // One directory's entries, sorted; shard directories or regular files
+    private List<Path> sortedEntries(Path directory, boolean shardDirectories) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                boolean match = shardDirectories
+                        ? Files.isDirectory(entry) && SHARD_DIRECTORY.matcher(entry.getFileName().toString()).matches()
+                        : Files.isRegularFile(entry);
+                if (match) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(null);
+        return entries;
+    }
+
+    private Path quarantine() {
+        return uploadLayout.getRoot().resolve(".quarantine");
+    }
+
+    /**
+     * Counters and pacing for one run.
+     */
+    private final class Pass {
+        private final Instant graceCutoff;
+        private final long startedAt = System.nanoTime();
+        private long checked;
+        private int quarantined;
+        private int restored;
+        private int missing;
+        private int purged;
+
+        Pass(Instant graceCutoff) {
+            this.graceCutoff = graceCutoff;
+        }
+
+        void pace() {
+            checked++;
+            long due = startedAt + checked * 1_000_000_000L / Math.max(1, properties.getMaxFilesPerSecond());
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UriUtils;
+
+import com.keiaa.safepoint.config.FileServingProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes stored files to HTTP responses. Stored names never change content,
+ * so responses carry a strong ETag, Last-Modified and a year-long immutable
+ * Cache-Control; revalidations get 304 and single byte ranges get 206. The
+ * body is handed to Tomcat's sendfile when the connector supports it and
+ * otherwise copied with FileChannel.transferTo, so the file never passes
+ * through a heap buffer of its own.
+ *
+ * With safepoint.files.offload set, the app still validates the request and
+ * answers revalidations, but leaves the body to the reverse proxy through an
+ * X-Accel-Redirect (nginx) or X-Sendfile (Apache, lighttpd) header.
+ */
+@Service
+public class FileDownloadService {
+
+    // Evidence is personal: browsers may keep it, shared caches may not
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePrivate()
+            .immutable()
+            .getHeaderValue();
+    // For responses that may be answered differently later: kept, but revalidated before each use
+    private static final String CACHE_CONTROL_REVALIDATE = CacheControl.noCache()
+            .cachePrivate()
+            .getHeaderValue();
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileServingProperties properties;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    /**
+     * Serves a file, honouring conditional and range requests.
+     *
+     * @param file The file to send
+     * @param etag Strong ETag value, quoted
+     * @param contentDisposition Content-Disposition header value
+     * @param request The current request
+     * @param response The current response
+     */
+    public void serve(Path file, String etag, String contentDisposition,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(file, etag, contentDisposition, true, request, response);
+    }
+
+    /**
+     * Serves a file, honouring conditional and range requests.
+     *
+     * @param file The file to send
+     * @param etag Strong ETag value, quoted; must identify the bytes of the file
+     * @param contentDisposition Content-Disposition header value
+     * @param immutable Whether the URL will always answer with this file; if
+     *        not, clients revalidate before reusing their copy
+     * @param request The current request
+     * @param response The current response
+     */
+    public void serve(Path file, String etag, String contentDisposition, boolean immutable,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? CACHE_CONTROL : CACHE_CONTROL_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers 304 if the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        MediaType contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+        if (offload(file, response)) {
+            // The proxy applies Range and writes the body
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeCurrent(request, etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Several ranges would need multipart/byteranges; sending the
+                // whole file is an allowed answer and no client here asks for them
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the body with sendfile once the request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, output);
+                if (transferred <= 0) {
+                    // Truncated underneath us; the client sees a short body
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Hands the body to the reverse proxy if offloading is configured.
+     *
+     * @return false if the file must be sent by the app
+     */
+    private boolean offload(Path file, HttpServletResponse response) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path dataRoot = uploadLayout.getDataRoot();
+        switch (properties.getOffload()) {
+            case X_SENDFILE -> response.setHeader("X-Sendfile", absolute.toString());
+            case X_ACCEL_REDIRECT -> {
+                if (!absolute.startsWith(dataRoot)) {
+                    return false;
+                }
+                StringBuilder location = new StringBuilder(properties.getInternalLocation());
+                for (Path segment : dataRoot.relativize(absolute)) {
+                    if (location.charAt(location.length() - 1) != '/') {
+                        location.append('/');
+                    }
+                    location.append(UriUtils.encodePathSegment(segment.toString(), StandardCharsets.UTF_8));
+                }
+                response.setHeader("X-Accel-Redirect", location.toString());
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies If-Range: the range is only honoured if the validator still
+     * matches, otherwise the full file is sent.
+     */
+    private boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
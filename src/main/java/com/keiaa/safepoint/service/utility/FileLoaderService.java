@@ -8,7 +8,6 @@ package com.keiaa.safepoint.service.utility;
 
 import java.net.MalformedURLException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
@@ -17,11 +16,12 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class FileLoaderService {
-    private final Path root = Paths.get("data/uploads").toAbsolutePath().normalize();
-    
     @Autowired
     private FileValidationService fileValidationService;
 
+    @Autowired
+    private UploadLayout uploadLayout;
+
     /**
      * Loads a file as a Spring Resource object.
      *
@@ -35,11 +35,7 @@ public class FileLoaderService {
                 throw new RuntimeException("Invalid filename!");
             }
 
-            Path file = root.resolve(filename).normalize();
-
-            if (!file.getParent().equals(root)) {
-                throw new RuntimeException("Cannot read file outside current directory.");
-            }
+            Path file = uploadLayout.locate(filename);
 
             Resource resource = new UrlResource(file.toUri());
 
@@ -7,48 +7,87 @@
 package com.keiaa.safepoint.service.utility;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.keiaa.safepoint.config.NormalizationProperties;
+
 import jakarta.annotation.PostConstruct;
 
 @Service
 public class FileStorageService {
 
-    private final Path root = Paths.get("data/uploads").toAbsolutePath().normalize();
+    // In-progress writes; never a valid stored name, so they can't be served
+    private Path incoming;
     
     @Autowired
     private FileValidationService fileValidationService;
 
+    @Autowired
+    private EvidenceBlobService evidenceBlobService;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    @Autowired
+    private ImageNormalizer imageNormalizer;
+
+    @Autowired
+    private NormalizationProperties normalizationProperties;
+
     /**
      * Initializes the file storage service by creating the root directory for uploads if it does not already exist.
+     * Uploads interrupted by a previous shutdown are removed from the incoming directory.
      * This method is called automatically after the bean's properties are set.
      * @throws RuntimeException if the directory cannot be initialized.
      */
     @PostConstruct
     public void init() {
+        incoming = uploadLayout.getRoot().resolve(".incoming");
         try {
-            Files.createDirectories(root);
+            Files.createDirectories(incoming);
+            try (Stream<Path> leftovers = Files.list(incoming)) {
+                leftovers.forEach(this::deleteQuietly);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize folder for upload!");
         }
     }
 
     /**
-     * Stores a given MultipartFile in the designated upload directory.
-     * Generates a unique filename to prevent collisions.
+     * Stores a given MultipartFile in the designated upload directory under
+     * the SHA-256 of its content, so identical uploads share one file.
+     *
+     * The upload is read exactly once: a buffered prefix is used for magic-byte
+     * detection against the allowed MIME types, and the same bytes plus the
+     * rest of the stream are hashed and written to a temporary file in
+     * data/uploads/.incoming. The finished file is then renamed into its shard
+     * (see UploadLayout) atomically, or dropped if the content is already
+     * stored. Types covered by the normalization policy are re-encoded
+     * before that (see ImageNormalizer). Each call adds one reference to the
+     * blob.
      *
      * @param file The MultipartFile to store.
-     * @return The unique filename under which the file was stored.
+     * @return The content-addressed filename under which the file was stored.
      * @throws RuntimeException if the file could not be stored.
      */
     public String store(MultipartFile file) {
+        Path tempFile = null;
         try {
             if (file == null || file.isEmpty()) {
                 throw new RuntimeException("Failed to store empty file.");
@@ -58,23 +97,212 @@ public class FileStorageService {
                 throw new RuntimeException("Invalid filename.");
             }
 
-            String mimeType = fileValidationService.detectMimeType(file);
-            if (!fileValidationService.isValidImageFile(file)) {
-                throw new RuntimeException("Only image files are allowed!");
+            String sha256;
+            String mimeType;
+            try (InputStream input = file.getInputStream()) {
+                byte[] prefix = input.readNBytes(FileValidationService.DETECTION_PREFIX_LENGTH);
+                mimeType = fileValidationService.detectMimeType(prefix);
+                if (!fileValidationService.isAllowedMimeType(mimeType)) {
+                    throw new RuntimeException("Only image files are allowed!");
+                }
+
+                MessageDigest digest = newSha256();
+                digest.update(prefix);
+                tempFile = createIncomingFile();
+                try (OutputStream output = Files.newOutputStream(tempFile)) {
+                    output.write(prefix);
+                    new DigestInputStream(input, digest).transferTo(output);
+                }
+                sha256 = HexFormat.of().formatHex(digest.digest());
             }
 
-            String extension = fileValidationService.getExtensionFromMimeType(mimeType);
-            String uniqueFilename = UUID.randomUUID().toString() + extension;
-            Path destinationFile = this.root.resolve(uniqueFilename).normalize();
+            StoredFile stored = place(tempFile, mimeType, sha256);
+            tempFile = null;
 
-            if (!destinationFile.getParent().equals(this.root)) {
-                throw new RuntimeException("Cannot store file outside current directory.");
-            }
+            evidenceBlobService.addReferences(stored.getFileName(), stored.getSha256(),
+                    stored.getSizeBytes(), stored.getOriginalSizeBytes(), 1);
+            return stored.getFileName();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file. Error: " + e.getMessage());
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
 
-            Files.copy(file.getInputStream(), destinationFile);
-            return uniqueFilename;
+    /**
+     * Stores a file that was already received in full under data/uploads,
+     * such as a finished resumable upload. The file is read once: its first
+     * bytes are checked for the type and hashed along with the rest, then
+     * the file is renamed into its shard. Unlike
+     * {@link #store(MultipartFile)} no reference is added; that happens when
+     * a report claims the file.
+     *
+     * @param source The received file; moved or deleted by this call
+     * @return The stored file
+     * @throws RuntimeException if the file is not an allowed image or could not be stored
+     */
+    public StoredFile storeReceived(Path source) {
+        try {
+            String mimeType;
+            String sha256;
+            try (InputStream input = openReceived(source)) {
+                byte[] prefix = input.readNBytes(FileValidationService.DETECTION_PREFIX_LENGTH);
+                mimeType = fileValidationService.detectMimeType(prefix);
+                if (!fileValidationService.isAllowedMimeType(mimeType)) {
+                    throw new RuntimeException("Only image files are allowed!");
+                }
+
+                MessageDigest digest = newSha256();
+                digest.update(prefix);
+                new DigestInputStream(input, digest).transferTo(OutputStream.nullOutputStream());
+                sha256 = HexFormat.of().formatHex(digest.digest());
+            }
+            return place(source, mimeType, sha256);
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file. Error: " + e.getMessage());
         }
     }
+
+    /**
+     * Moves a validated file to its content-addressed path, re-encoding it
+     * first if the normalization policy covers its type. A re-encoded file
+     * is named after the hash of what is stored; the received bytes are
+     * moved to data/originals if the policy keeps them, else deleted.
+     *
+     * @param received The validated file; moved or deleted by this call
+     * @param mimeType Its detected MIME type
+     * @param sha256 Hex SHA-256 of the received content
+     */
+    private StoredFile place(Path received, String mimeType, String sha256) throws IOException {
+        long originalSize = Files.size(received);
+        String extension = fileValidationService.getExtensionFromMimeType(mimeType);
+        Path content = received;
+
+        Path normalized = imageNormalizer.normalize(received, mimeType);
+        try {
+            if (normalized != null) {
+                content = normalized;
+                sha256 = hash(normalized);
+                extension = fileValidationService.getExtensionFromMimeType("image/jpeg");
+            }
+
+            String filename = sha256 + extension;
+            Path destinationFile = uploadLayout.pathFor(filename);
+            Files.createDirectories(destinationFile.getParent());
+            long size = Files.size(content);
+            moveIntoPlace(content, destinationFile);
+
+            if (normalized != null) {
+                if (normalizationProperties.isKeepOriginal()) {
+                    Path original = uploadLayout.originalPathFor(filename);
+                    Files.createDirectories(original.getParent());
+                    moveIntoPlace(received, original);
+                } else {
+                    Files.delete(received);
+                }
+            }
+            return new StoredFile(filename, sha256, size, originalSize);
+        } finally {
+            deleteQuietly(normalized);
+        }
+    }
+
+    private String hash(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Opens a received file for reading.
+     */
+    InputStream openReceived(Path source) throws IOException {
+        return Files.newInputStream(source);
+    }
+
+    /**
+     * Creates an empty file in the incoming directory. It is on the same
+     * filesystem as the upload root, so moving it into place is a rename.
+     *
+     * @return The new temporary file
+     */
+    Path createIncomingFile() throws IOException {
+        return Files.createTempFile(incoming, "upload-", ".tmp");
+    }
+
+    /**
+     * Moves a fully written file to its content-addressed name. If that name
+     * already exists the content is identical, so the new copy is discarded.
+     *
+     * @param source The temporary file
+     * @param destination The final path
+     */
+    void moveIntoPlace(Path source, Path destination) throws IOException {
+        if (Files.exists(destination)) {
+            Files.delete(source);
+            // Counts as new for the orphan collector's grace period until the report commits
+            Files.setLastModifiedTime(destination, FileTime.from(Instant.now()));
+            return;
+        }
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same content stored concurrently
+            Files.deleteIfExists(source);
+        }
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Left behind as a stray temp file; not referenced by anything
+            }
+        }
+    }
+
+    /**
+     * A file in the store and what it took up as received.
+     */
+    public static final class StoredFile {
+        private final String fileName;
+        private final String sha256;
+        private final long sizeBytes;
+        private final long originalSizeBytes;
+
+        StoredFile(String fileName, String sha256, long sizeBytes, long originalSizeBytes) {
+            this.fileName = fileName;
+            this.sha256 = sha256;
+            this.sizeBytes = sizeBytes;
+            this.originalSizeBytes = originalSizeBytes;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        public long getOriginalSizeBytes() {
+            return originalSizeBytes;
+        }
+    }
 }
@@ -6,12 +6,9 @@
 
 package com.keiaa.safepoint.service.utility;
 
-import java.io.IOException;
-
 import org.apache.tika.Tika;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import com.keiaa.safepoint.config.MimeTypeProperties;
 
@@ -22,13 +19,11 @@ public class FileValidationService {
     @Autowired
     private MimeTypeProperties mimeTypeProperties;
 
-    public boolean isValidImageFile(MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
-            return false;
-        }
+    // Enough leading bytes for Tika's magic-number rules on every allowed type
+    public static final int DETECTION_PREFIX_LENGTH = 64 * 1024;
 
-        String detectedType = tika.detect(file.getInputStream());
-        return mimeTypeProperties.getAllowed().contains(detectedType);
+    public boolean isAllowedMimeType(String mimeType) {
+        return mimeType != null && mimeTypeProperties.getAllowed().contains(mimeType);
     }
 
     public String getExtensionFromMimeType(String mimeType) {
@@ -44,7 +39,14 @@ public class FileValidationService {
                filename.matches("^[a-zA-Z0-9._-]+$");
     }
 
-    public String detectMimeType(MultipartFile file) throws IOException {
-        return tika.detect(file.getInputStream());
+    /**
+     * Detects the MIME type from the first bytes of a file, so callers can
+     * validate an upload without opening its stream a second time.
+     *
+     * @param prefix Up to DETECTION_PREFIX_LENGTH leading bytes of the file
+     * @return The detected MIME type
+     */
+    public String detectMimeType(byte[] prefix) {
+        return tika.detect(prefix);
     }
 }
\ No newline at end of file
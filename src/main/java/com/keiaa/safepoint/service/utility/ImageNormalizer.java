@@ -0,0 +1,72 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.keiaa.safepoint.config.NormalizationProperties;
+
+/**
+ * Optional re-encoding of validated uploads. Bulky formats such as BMP and
+ * TIFF phone captures are written as JPEG, capped at maxDimension, with
+ * all metadata dropped. The result is only used if it is actually smaller.
+ */
+@Component
+public class ImageNormalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageNormalizer.class);
+
+    @Autowired
+    private NormalizationProperties properties;
+
+    @Autowired
+    private ImageDownscaler imageDownscaler;
+
+    /**
+     * Re-encodes a received file if the policy covers its type.
+     *
+     * @param file The received file, left untouched
+     * @param mimeType The detected MIME type
+     * @return A JPEG next to the file, or null to keep the file as it is
+     */
+    public Path normalize(Path file, String mimeType) {
+        if (!properties.isEnabled() || !properties.getFormats().contains(mimeType)) {
+            return null;
+        }
+        Path normalized = null;
+        try {
+            normalized = Files.createTempFile(file.getParent(), "normalized-", ".jpg");
+            if (imageDownscaler.writeJpeg(file, normalized, properties.getMaxDimension(), properties.getQuality())
+                    && Files.size(normalized) < Files.size(file)) {
+                return normalized;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not decodable after all; store the file as received
+            logger.warn("Could not normalize {} upload: {}", mimeType, e.toString());
+        }
+        deleteQuietly(normalized);
+        return null;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.keiaa.safepoint.repository.EvidenceBlobRepository;
+
+/**
+ * Moves evidence stored before content addressing (random UUID names) to
+ * SHA-256 names. For each legacy file: link it under its hash name, rename
+ * every reference (reports and queued emails) and count them in one
+ * transaction, then delete the old name. Safe to interrupt and re-run, and
+ * a no-op once every reference is content-addressed.
+ */
+@Component
+public class LegacyEvidenceMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyEvidenceMigration.class);
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    @Autowired
+    private EvidenceBlobService evidenceBlobService;
+
+    @Autowired
+    private FileLoaderService fileLoaderService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LegacyEvidenceMigration(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        int migrated = 0;
+        for (String fileName : evidenceBlobRepository.findReferencedFileNames()) {
+            if (uploadLayout.isContentAddressed(fileName)) {
+                continue;
+            }
+            try {
+                if (migrate(fileName)) {
+                    migrated++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not migrate evidence file {}: {}", fileName, e.toString());
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} evidence files to content-addressed storage", migrated);
+        }
+    }
+
+    private boolean migrate(String legacyName) throws IOException {
+        Path legacyFile;
+        try {
+            legacyFile = fileLoaderService.load(legacyName).getFile().toPath();
+        } catch (RuntimeException e) {
+            // Missing on disk: nothing to hash, leave the reference as it is
+            logger.warn("Evidence file {} is referenced but missing", legacyName);
+            return false;
+        }
+
+        MessageDigest digest = FileStorageService.newSha256();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(legacyFile), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        long size = Files.size(legacyFile);
+        String newName = sha256 + extensionOf(legacyName);
+
+        Path target = uploadLayout.pathFor(newName);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            link(legacyFile, target);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long references = evidenceBlobRepository.renameReportReferences(legacyName, newName);
+            evidenceBlobRepository.renameOutboxAttachments(legacyName, newName);
+            if (references > 0) {
+                evidenceBlobService.addReferences(newName, sha256, size, size, references);
+            }
+        });
+
+        Files.deleteIfExists(legacyFile);
+        return true;
+    }
+
+    // Hard link where the filesystem allows it (no copy), else copy and rename
+    private void link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            // Created concurrently; same content
+        } catch (IOException | UnsupportedOperationException e) {
+            Path tempFile = fileStorageService.createIncomingFile();
+            try {
+                Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot).toLowerCase(Locale.ROOT) : ".jpg";
+    }
+}
@@ -6,51 +6,194 @@
 
 package com.keiaa.safepoint.service.utility;
 
-import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.keiaa.safepoint.config.RateLimitProperties;
+
+/**
+ * Per-client token buckets for the rate-limited endpoints. A policy allows
+ * a burst of capacity requests, after which one more request is earned
+ * every period / capacity.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be
+ * full again (the "theoretical arrival time" of GCRA, an equivalent
+ * formulation of the token bucket). A request is allowed if that time is
+ * less than one burst ahead of now, and takes its token by advancing it
+ * with a compare-and-set, so concurrent requests for the same client can
+ * never overdraw the bucket. A bucket whose time has passed is full and
+ * holds no information, so it can be dropped; that keeps the map bounded
+ * by the clients active within one period, and by maxKeys in any case.
+ *
+ * With several nodes each would apply the limits separately, so the JDBC
+ * backend hands the decision to DatabaseRateLimiter instead.
+ */
 @Service
 public class RateLimitingService {
 
-    private final ConcurrentHashMap<String, LocalDateTime> lastRequestTimes = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Integer> requestCounts = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitingService.class);
+
+    // Marks a bucket being removed; callers that see it look the key up again
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private DatabaseRateLimiter databaseRateLimiter;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean shrinking = new AtomicBoolean();
+    private final long origin = System.nanoTime();
 
     public boolean isAllowedForPasswordReset(String key) {
-        return isAllowedWithInterval(key, 5); // 5 minutes between password reset requests
+        return tryAcquire("password-reset", properties.getPasswordReset(), key);
     }
 
     public boolean isAllowedForReports(String key) {
-        LocalDateTime now = LocalDateTime.now();
-        Integer count = requestCounts.get(key);
-        LocalDateTime lastRequest = lastRequestTimes.get(key);
-
-        // Reset count if more than 10 minutes passed
-        if (lastRequest == null || lastRequest.plusMinutes(10).isBefore(now)) {
-            requestCounts.put(key, 1);
-            lastRequestTimes.put(key, now);
-            return true;
+        return tryAcquire("reports", properties.getReports(), key);
+    }
+
+    /**
+     * Whether the client may try to sign in. Only failed attempts are
+     * counted, so checking takes nothing from the bucket.
+     *
+     * @param key The client, see LoginRateLimitFilter
+     * @return false once the client has used up its failed attempts
+     */
+    public boolean isAllowedForLogin(String key) {
+        return hasToken("login", properties.getLogin(), key);
+    }
+
+    /**
+     * Counts a failed sign-in against the client's login limit.
+     */
+    public void recordFailedLogin(String key) {
+        tryAcquire("login", properties.getLogin(), key);
+    }
+
+    public boolean isAllowedForSignup(String key) {
+        return tryAcquire("signup", properties.getSignup(), key);
+    }
+
+    /**
+     * Drops buckets that have refilled completely. Run periodically so
+     * clients that went away do not hold memory.
+     */
+    public void evictIdle() {
+        long now = now();
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            evictIf(entry, now);
+        }
+    }
+
+    private boolean tryAcquire(String policyName, RateLimitProperties.Policy policy, String key) {
+        if (properties.getBackend() == RateLimitProperties.Backend.JDBC) {
+            return databaseRateLimiter.tryAcquire(policyName, policy, key);
         }
+        long interval = interval(policy);
+        long burstTolerance = burstTolerance(policy);
+        String bucketKey = policyName + ':' + key;
 
-        if (count == null || count < 5) {
-            requestCounts.put(key, count == null ? 1 : count + 1);
-            lastRequestTimes.put(key, now);
+        while (true) {
+            AtomicLong bucket = buckets.get(bucketKey);
+            if (bucket == null) {
+                bucket = createBucket(bucketKey);
+            }
+            long fullAt = bucket.get();
+            if (fullAt == EVICTED) {
+                buckets.remove(bucketKey, bucket);
+                continue;
+            }
+            long now = now();
+            long start = Math.max(fullAt, now);
+            if (start - now > burstTolerance) {
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    // Like tryAcquire, without taking the token
+    private boolean hasToken(String policyName, RateLimitProperties.Policy policy, String key) {
+        if (properties.getBackend() == RateLimitProperties.Backend.JDBC) {
+            return databaseRateLimiter.hasCapacity(policyName, policy, key);
+        }
+        AtomicLong bucket = buckets.get(policyName + ':' + key);
+        if (bucket == null) {
             return true;
         }
+        long fullAt = bucket.get();
+        long now = now();
+        // An evicted bucket is as good as full
+        return fullAt == EVICTED || Math.max(fullAt, now) - now <= burstTolerance(policy);
+    }
+
+    private static long interval(RateLimitProperties.Policy policy) {
+        return Math.max(1, policy.getPeriod().toNanos() / Math.max(1, policy.getCapacity()));
+    }
 
-        return false; // Blocked for 10 minutes after 5 requests
+    // How far ahead of now the bucket may be and still have a token left
+    private static long burstTolerance(RateLimitProperties.Policy policy) {
+        return interval(policy) * (Math.max(1, policy.getCapacity()) - 1);
     }
 
-    private boolean isAllowedWithInterval(String key, int intervalMinutes) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastRequest = lastRequestTimes.get(key);
-        
-        if (lastRequest == null || lastRequest.plusMinutes(intervalMinutes).isBefore(now)) {
-            lastRequestTimes.put(key, now);
+    private AtomicLong createBucket(String bucketKey) {
+        if (buckets.mappingCount() >= properties.getMaxKeys()) {
+            shrink();
+        }
+        // Zero is in the past, so a new bucket starts full
+        return buckets.computeIfAbsent(bucketKey, k -> new AtomicLong());
+    }
+
+    // Makes room for new clients: idle buckets first, then any, down to 90% of maxKeys
+    private void shrink() {
+        if (!shrinking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            evictIdle();
+            long target = properties.getMaxKeys() * 9L / 10;
+            if (buckets.mappingCount() <= target) {
+                return;
+            }
+            // Every tracked client is active; resetting some is the price of bounded memory
+            int evicted = 0;
+            Iterator<Map.Entry<String, AtomicLong>> it = buckets.entrySet().iterator();
+            while (it.hasNext() && buckets.mappingCount() > target) {
+                if (evictIf(it.next(), Long.MAX_VALUE)) {
+                    evicted++;
+                }
+            }
+            logger.warn("Rate limiter reached {} tracked clients; reset {} active buckets",
+                    properties.getMaxKeys(), evicted);
+        } finally {
+            shrinking.set(false);
+        }
+    }
+
+    // Removes the bucket if it is full by the given time
+    private boolean evictIf(Map.Entry<String, AtomicLong> entry, long now) {
+        AtomicLong bucket = entry.getValue();
+        long fullAt = bucket.get();
+        if (fullAt != EVICTED && fullAt <= now && bucket.compareAndSet(fullAt, EVICTED)) {
+            buckets.remove(entry.getKey(), bucket);
             return true;
         }
-        
         return false;
     }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
 }
@@ -13,28 +13,30 @@ import java.util.Random;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.keiaa.safepoint.exception.DailyReportLimitExceededException;
-import com.keiaa.safepoint.repository.ReportRepository;
-
 @Service
 public class ReportIdGenerator {
 
     private static final String ALPHANUMERIC = "0123456789abcdefghijklmnopqrstuvwxyz";
     private static final Random RANDOM = new Random();
 
-    @Autowired
-    private ReportRepository reportRepository;
-
-    public String generateReportId() {
-        LocalDate today = LocalDate.now();
-        long dailySubmissions = reportRepository.countByTimestampBetween(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyMMdd");
 
-        if (dailySubmissions >= 99) {
-            throw new DailyReportLimitExceededException("The daily report submission limit has been reached. Please try again tomorrow.");
-        }
-
-        String datePart = today.format(DateTimeFormatter.ofPattern("yyMMdd"));
-        String indexPart = String.format("%02d", dailySubmissions + 1);
+    @Autowired
+    private ReportIndexAllocator reportIndexAllocator;
+
+    /**
+     * Generates a report ID of the form yyMMdd-NN-xxxx, where NN is the
+     * day's submission index from {@link ReportIndexAllocator}. Must be
+     * called outside a transaction.
+     *
+     * @param day The day the report is submitted on
+     * @return A new, unique report ID
+     */
+    public String generateReportId(LocalDate day) {
+        long index = reportIndexAllocator.nextIndex(day);
+
+        String datePart = day.format(DATE_FORMAT);
+        String indexPart = String.format("%02d", index);
         String randomPart = generateRandomString(4);
 
         return String.format("%s-%s-%s", datePart, indexPart, randomPart);
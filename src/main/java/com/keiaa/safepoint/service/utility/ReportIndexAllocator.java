@@ -0,0 +1,159 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.keiaa.safepoint.config.ReportIdProperties;
+import com.keiaa.safepoint.exception.DailyReportLimitExceededException;
+import com.keiaa.safepoint.model.ReportIdSequence;
+import com.keiaa.safepoint.repository.ReportIdSequenceRepository;
+
+/**
+ * Hands out the per-day index used in report IDs and enforces the daily
+ * report limit.
+ *
+ * Indices are reserved from the report_id_sequences row for the day in
+ * blocks, under a row lock and in their own short transaction, then given
+ * out from memory with an atomic increment. Blocks never overlap, so indices
+ * are unique across threads and across nodes; the cost is that a block a
+ * node never finishes (e.g. on restart), or an index whose submission fails,
+ * leaves a gap in that day's numbering. Indices are allocated before the
+ * submission's transaction opens: a thread refilling the block then runs
+ * its reservation on the connection it already has, instead of needing a
+ * second one while the threads waiting for it hold theirs.
+ *
+ * Gaps don't count against the limit. It is counted on the same row inside
+ * each submission's transaction, so only reports that are actually saved
+ * use it up.
+ */
+@Component
+public class ReportIndexAllocator {
+
+    private static final String LIMIT_MESSAGE = "The daily report submission limit has been reached. Please try again tomorrow.";
+
+    @Autowired
+    private ReportIdSequenceRepository sequenceRepository;
+
+    @Autowired
+    private ReportIdProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Block current;
+
+    public ReportIndexAllocator(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Allocates the next index for the given day, starting from 1. Must be
+     * called outside a transaction.
+     *
+     * @param day The day the report is submitted on
+     * @return An index no other submission on that day has been given
+     * @throws IllegalStateException If called inside a transaction
+     */
+    public long nextIndex(LocalDate day) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A reservation rolled back with the caller would hand its block out twice
+            throw new IllegalStateException("Report indices must be allocated outside a transaction");
+        }
+        while (true) {
+            Block block = current;
+            if (block != null && block.day.equals(day)) {
+                long index = block.next.getAndIncrement();
+                if (index < block.end) {
+                    return index;
+                }
+            }
+
+            synchronized (this) {
+                // Only one thread refills; the others retry on the new block
+                if (current == block) {
+                    current = reserveBlock(day);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cheap check before a submission does any work. Not a guarantee; the
+     * limit is enforced by {@link #acceptReport(LocalDate)}.
+     *
+     * @param day The day the report is submitted on
+     * @throws DailyReportLimitExceededException If the day's limit has already been used up
+     */
+    public void checkLimit(LocalDate day) {
+        boolean reached = sequenceRepository.findById(day)
+                .map(sequence -> sequence.getAcceptedCount() >= properties.getDailyLimit())
+                .orElse(false);
+        if (reached) {
+            throw new DailyReportLimitExceededException(LIMIT_MESSAGE);
+        }
+    }
+
+    /**
+     * Counts a report against the day's limit. Joins the submission's
+     * transaction, so a submission that rolls back gives its place back.
+     * The day's row exists, since the report's index was allocated from it.
+     *
+     * @param day The day the report's index was allocated for
+     * @throws DailyReportLimitExceededException If the day's limit has been reached
+     */
+    @Transactional
+    public void acceptReport(LocalDate day) {
+        if (sequenceRepository.incrementAccepted(day, properties.getDailyLimit()) == 0) {
+            throw new DailyReportLimitExceededException(LIMIT_MESSAGE);
+        }
+    }
+
+    private Block reserveBlock(LocalDate day) {
+        int blockSize = Math.max(1, properties.getBlockSize());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    ReportIdSequence sequence = sequenceRepository.findForUpdate(day)
+                            .orElseGet(() -> sequenceRepository.saveAndFlush(new ReportIdSequence(day, 1, 0)));
+
+                    long start = sequence.getNextIndex();
+                    long end = start + blockSize;
+                    sequence.setNextIndex(end);
+                    sequenceRepository.save(sequence);
+                    return new Block(day, start, end);
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the day's row first; lock theirs instead
+                if (attempt >= 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long end; // exclusive
+
+        private Block(LocalDate day, long start, long end) {
+            this.day = day;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
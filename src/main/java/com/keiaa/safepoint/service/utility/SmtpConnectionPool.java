@@ -0,0 +1,239 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.keiaa.safepoint.config.SmtpPoolProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Keeps a few authenticated SMTP connections open and sends many messages
+ * over each, instead of a connect + TLS handshake + AUTH per message as
+ * {@link JavaMailSenderImpl#send(MimeMessage)} does. Connections are taken
+ * from the session and credentials of Spring's configured mail sender.
+ *
+ * A connection is NOOP-checked before reuse once it has sat idle for a
+ * while, dropped when idle too long, and replaced after a fixed number of
+ * messages so no single connection lives forever.
+ */
+@Component
+public class SmtpConnectionPool {
+
+    @Autowired
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private SmtpPoolProperties properties;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        permits = new Semaphore(properties.getMaxConnections());
+        senders = Executors.newFixedThreadPool(properties.getMaxConnections(), runnable -> {
+            Thread thread = new Thread(runnable, "smtp-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdown();
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Sends the messages, split across up to maxConnections connections.
+     *
+     * @param messages Messages to send
+     * @return The messages that failed, with the reason; empty if all were sent
+     */
+    public Map<MimeMessage, Exception> send(Collection<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failed = new ConcurrentHashMap<>();
+        Set<MimeMessage> sent = ConcurrentHashMap.newKeySet();
+        List<List<MimeMessage>> chunks = split(new ArrayList<>(messages), properties.getMaxConnections());
+        if (chunks.size() == 1) {
+            sendChunk(chunks.get(0), sent, failed);
+            return failed;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<MimeMessage> chunk : chunks) {
+            futures.add(senders.submit(() -> sendChunk(chunk, sent, failed)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // sendChunk records its own outcomes
+        }
+        // Outcome unknown (interrupted while waiting): report as failed so
+        // the outbox retries it; delivery is at-least-once anyway
+        for (MimeMessage message : messages) {
+            if (!sent.contains(message)) {
+                failed.putIfAbsent(message, new MessagingException("Send did not complete"));
+            }
+        }
+        return failed;
+    }
+
+    private void sendChunk(List<MimeMessage> chunk, Set<MimeMessage> sent, Map<MimeMessage, Exception> failed) {
+        PooledConnection connection = null;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunk.forEach(message -> failed.put(message, e));
+            return;
+        }
+
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                MimeMessage message = chunk.get(i);
+                if (connection == null) {
+                    try {
+                        connection = borrow();
+                    } catch (MessagingException e) {
+                        // Can't reach the server: the rest of the chunk fails too
+                        for (MimeMessage remaining : chunk.subList(i, chunk.size())) {
+                            failed.put(remaining, e);
+                        }
+                        return;
+                    }
+                }
+
+                try {
+                    if (message.getSentDate() == null) {
+                        message.setSentDate(new Date());
+                    }
+                    message.saveChanges();
+                    connection.transport.sendMessage(message, message.getAllRecipients());
+                    connection.messagesSent++;
+                    sent.add(message);
+                } catch (SendFailedException e) {
+                    // Rejected recipient(s); the connection itself is still fine
+                    failed.put(message, e);
+                } catch (MessagingException e) {
+                    failed.put(message, e);
+                    connection.close();
+                    connection = null;
+                    continue;
+                }
+
+                if (connection.messagesSent >= properties.getMaxMessagesPerConnection()) {
+                    connection.close();
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                connection.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            }
+            permits.release();
+        }
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        PooledConnection connection;
+        long now = System.currentTimeMillis();
+        while ((connection = idle.pollFirst()) != null) {
+            long idleMillis = now - connection.lastUsed;
+            if (idleMillis > properties.getIdleTimeout().toMillis()) {
+                connection.close();
+            } else if (idleMillis > properties.getValidateAfterIdle().toMillis() && !connection.transport.isConnected()) {
+                // isConnected() issues a NOOP on SMTP transports
+                connection.close();
+            } else {
+                return connection;
+            }
+        }
+
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return new PooledConnection(transport);
+    }
+
+    /**
+     * Closes connections that have been idle past the idle timeout, so the
+     * server doesn't have to time them out.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleTimeout().toMillis();
+        for (PooledConnection connection : idle) {
+            if (connection.lastUsed < cutoff && idle.remove(connection)) {
+                connection.close();
+            }
+        }
+    }
+
+    private static List<List<MimeMessage>> split(List<MimeMessage> messages, int parts) {
+        int chunkCount = Math.max(1, Math.min(parts, messages.size()));
+        int chunkSize = (messages.size() + chunkCount - 1) / chunkCount;
+        List<List<MimeMessage>> chunks = new ArrayList<>();
+        for (int start = 0; start < messages.size(); start += chunkSize) {
+            chunks.add(messages.subList(start, Math.min(start + chunkSize, messages.size())));
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(List.of());
+        }
+        return chunks;
+    }
+
+    private static final class PooledConnection {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already broken; nothing to clean up
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.keiaa.safepoint.config.StorageProperties;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Where evidence files live under data/uploads (the data directory is
+ * safepoint.storage.data-dir). Content-addressed names are
+ * sharded two levels deep by their leading hash characters, so
+ * "abcd12...ef.jpg" is stored as "ab/cd/abcd12...ef.jpg" and no directory
+ * grows past a few hundred entries. Other names (uploads from before content
+ * addressing) stay in the root. Files written before sharding are still
+ * found in the root until UploadShardMigration has moved them.
+ */
+@Component
+public class UploadLayout {
+
+    static final Pattern CONTENT_ADDRESSED = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]+$");
+
+    @Autowired
+    private StorageProperties storageProperties;
+
+    private Path dataRoot;
+    private Path root;
+    private Path originalsRoot;
+
+    @PostConstruct
+    public void init() {
+        dataRoot = Paths.get(storageProperties.getDataDir()).toAbsolutePath().normalize();
+        root = dataRoot.resolve("uploads");
+        originalsRoot = dataRoot.resolve("originals");
+    }
+
+    /**
+     * @return The data directory holding uploads, originals and derivatives
+     */
+    public Path getDataRoot() {
+        return dataRoot;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public boolean isContentAddressed(String filename) {
+        return filename != null && CONTENT_ADDRESSED.matcher(filename).matches();
+    }
+
+    /**
+     * The path a file is written to.
+     *
+     * @param filename A validated stored file name
+     * @return The sharded path for content-addressed names, else a path in the root
+     * @throws RuntimeException if the name would resolve outside the upload root
+     */
+    public Path pathFor(String filename) {
+        Path file = isContentAddressed(filename)
+                ? root.resolve(filename.substring(0, 2)).resolve(filename.substring(2, 4)).resolve(filename)
+                : root.resolve(filename);
+        file = file.normalize();
+        if (!file.startsWith(root) || !file.getFileName().toString().equals(filename)) {
+            throw new RuntimeException("Cannot access file outside current directory.");
+        }
+        return file;
+    }
+
+    /**
+     * Where the upload a normalized file was made from is kept, if the
+     * normalization policy keeps originals. Sharded like the store.
+     *
+     * @param filename A content-addressed stored file name
+     * @return The path of the original
+     */
+    public Path originalPathFor(String filename) {
+        return originalsRoot.resolve(root.relativize(pathFor(filename))).resolveSibling(filename + ".original");
+    }
+
+    /**
+     * The path a file is read from. Looks in the shard first and falls back
+     * to the root, where files stored before sharding remain until migrated.
+     *
+     * @param filename A validated stored file name
+     * @return The existing path, or the sharded path if the file is in neither place
+     */
+    public Path locate(String filename) {
+        Path file = pathFor(filename);
+        if (!Files.exists(file)) {
+            Path flat = root.resolve(filename).normalize();
+            if (flat.getParent().equals(root) && Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves content-addressed files left in the flat upload root into their
+ * shard directories. Runs on a background thread after startup; until a file
+ * is moved, UploadLayout.locate still finds it in the root. A rename within
+ * one filesystem, so each file is either in the old or the new place. Safe
+ * to interrupt and a no-op once the root holds no more evidence files.
+ */
+@Component
+public class UploadShardMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadShardMigration.class);
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::migrate, "upload-shard-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrate() {
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadLayout.getRoot(), Files::isRegularFile)) {
+            for (Path file : files) {
+                String filename = file.getFileName().toString();
+                if (!uploadLayout.isContentAddressed(filename)) {
+                    continue;
+                }
+                try {
+                    moveToShard(file, uploadLayout.pathFor(filename));
+                    moved++;
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not move {} into its shard: {}", filename, e.toString());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list upload directory for sharding: {}", e.toString());
+        }
+        if (moved > 0) {
+            logger.info("Moved {} evidence files into shard directories", moved);
+        }
+    }
+
+    private void moveToShard(Path file, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            // Stored again since sharding began; same content
+            Files.delete(file);
+            return;
+        }
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(file);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Both live under data/uploads, so this means an unusual mount setup
+            throw new IOException("Upload shards are on a different filesystem", e);
+        }
+    }
+}
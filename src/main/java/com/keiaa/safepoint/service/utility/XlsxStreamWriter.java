@@ -0,0 +1,222 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal forward-only XLSX writer. Each sheet is written straight into the
+ * zip as rows arrive, so nothing is buffered beyond the deflater window and
+ * the first bytes reach the client while rows are still being read. Numbers
+ * become numeric cells; everything else is written as an inline string.
+ *
+ * Usage: {@code beginSheet}, any number of {@code writeRow}, {@code endSheet},
+ * repeat, then {@code close}. Not thread-safe.
+ */
+public class XlsxStreamWriter implements Closeable {
+
+    private static final String[] COLUMN_LETTERS = buildColumnLetters();
+
+    private final SyncFlushZipOutputStream zip;
+    private final Writer writer;
+    private final List<String> sheetNames = new ArrayList<>();
+    private int rowNumber;
+    private boolean inSheet;
+
+    public XlsxStreamWriter(OutputStream out) {
+        this.zip = new SyncFlushZipOutputStream(out);
+        this.writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+    }
+
+    public void beginSheet(String name) throws IOException {
+        if (inSheet) {
+            endSheet();
+        }
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        rowNumber = 0;
+        inSheet = true;
+    }
+
+    public void writeRow(Object... cells) throws IOException {
+        rowNumber++;
+        writer.write("<row r=\"" + rowNumber + "\">");
+        for (int i = 0; i < cells.length && i < COLUMN_LETTERS.length; i++) {
+            Object cell = cells[i];
+            if (cell == null) {
+                continue;
+            }
+            String ref = COLUMN_LETTERS[i] + rowNumber;
+            if (cell instanceof Number) {
+                writer.write("<c r=\"" + ref + "\"><v>" + cell + "</v></c>");
+            } else {
+                writer.write("<c r=\"" + ref + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writer.write(escape(cell.toString()));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    public void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        inSheet = false;
+    }
+
+    /**
+     * Pushes everything written so far to the underlying stream, including
+     * rows still held by the deflater (see SyncFlushZipOutputStream).
+     */
+    public void flush() throws IOException {
+        writer.flush();
+        zip.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inSheet) {
+            endSheet();
+        }
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRelationships());
+        writer.flush();
+        zip.close();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<sheet name=\"").append(escape(sheetNames.get(i - 1)))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        return xml.append("</Relationships>").toString();
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                default -> {
+                    // Control characters other than tab/newline are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String[] buildColumnLetters() {
+        String[] letters = new String[26];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = String.valueOf((char) ('A' + i));
+        }
+        return letters;
+    }
+
+    /**
+     * ZipOutputStream's flush() only passes on what the deflater has already
+     * emitted, and unlike DeflaterOutputStream it has no syncFlush option.
+     * This one does a SYNC_FLUSH of the open entry first, the same as
+     * DeflaterOutputStream with syncFlush=true, so every row written so far
+     * can be inflated by the client. Outside an entry there is nothing
+     * pending, and flushing the deflater there would put stray bytes
+     * between entries.
+     */
+    private static final class SyncFlushZipOutputStream extends ZipOutputStream {
+        private boolean inEntry;
+
+        private SyncFlushZipOutputStream(OutputStream out) {
+            super(out, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void putNextEntry(ZipEntry entry) throws IOException {
+            super.putNextEntry(entry);
+            inEntry = true;
+        }
+
+        @Override
+        public void closeEntry() throws IOException {
+            inEntry = false;
+            super.closeEntry();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (inEntry && !def.finished()) {
+                int length;
+                while ((length = def.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH)) > 0) {
+                    out.write(buf, 0, length);
+                    if (length < buf.length) {
+                        break;
+                    }
+                }
+            }
+            out.flush();
+        }
+    }
+}
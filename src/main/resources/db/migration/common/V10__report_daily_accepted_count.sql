@@ -0,0 +1,11 @@
+-- The daily report limit is counted on reports actually saved rather than
+-- on report ID indices handed out, which failed submissions and unfinished
+-- blocks leave unused. Existing days are seeded from the reports table.
+
+ALTER TABLE report_id_sequences ADD COLUMN IF NOT EXISTS accepted_count BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE report_id_sequences SET accepted_count = (
+    SELECT COUNT(*) FROM reports r
+    WHERE r.timestamp >= report_id_sequences.sequence_date
+      AND r.timestamp < report_id_sequences.sequence_date + INTERVAL '1' DAY
+);
@@ -0,0 +1,5 @@
+-- Uploads finalized before V8 were stored as uploaded, so their stored
+-- size is the upload's total size
+
+UPDATE chunked_uploads SET stored_size_bytes = total_size
+WHERE stored_file_name IS NOT NULL AND stored_size_bytes IS NULL;
@@ -0,0 +1,78 @@
+-- Baseline: the schema as Hibernate's ddl-auto=update generated it before
+-- migrations took over. Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this only runs on an empty one.
+-- Plain ANSI types only - the same script runs on H2 and PostgreSQL.
+
+CREATE TABLE admins (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50),
+    password VARCHAR(255)
+);
+
+CREATE TABLE students (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100),
+    email VARCHAR(255) UNIQUE,
+    lrn VARCHAR(12) UNIQUE,
+    password VARCHAR(255),
+    email_verified BOOLEAN NOT NULL
+);
+
+CREATE TABLE reports (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    report_id VARCHAR(255),
+    name VARCHAR(100),
+    email VARCHAR(255),
+    category VARCHAR(10),
+    description VARCHAR(2000),
+    timestamp TIMESTAMP(6),
+    external_link VARCHAR(255),
+    status SMALLINT
+);
+
+CREATE TABLE report_evidence_file_paths (
+    report_id BIGINT NOT NULL REFERENCES reports (id),
+    evidence_file_paths VARCHAR(255)
+);
+
+CREATE TABLE report_history (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    report_id BIGINT REFERENCES reports (id),
+    old_status SMALLINT,
+    new_status SMALLINT,
+    description VARCHAR(255),
+    timestamp TIMESTAMP(6),
+    updated_by VARCHAR(255)
+);
+
+CREATE TABLE appointments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100),
+    email VARCHAR(255),
+    preferred_date_time TIMESTAMP(6),
+    reason VARCHAR(500),
+    status VARCHAR(255)
+);
+
+CREATE TABLE password_reset_tokens (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token VARCHAR(255) NOT NULL,
+    expiry_date TIMESTAMP(6) NOT NULL,
+    email VARCHAR(255),
+    used BOOLEAN NOT NULL
+);
+
+CREATE TABLE email_verification_tokens (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token VARCHAR(255) NOT NULL,
+    expiry_date TIMESTAMP(6) NOT NULL,
+    student_id BIGINT NOT NULL UNIQUE REFERENCES students (id)
+);
+
+CREATE TABLE feedback (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    student_id BIGINT NOT NULL UNIQUE REFERENCES students (id),
+    rating VARCHAR(255),
+    comment VARCHAR(1000),
+    timestamp TIMESTAMP(6)
+);
@@ -0,0 +1,13 @@
+-- Tables added alongside the incremental dashboard counters and the per-day
+-- report ID allocator. IF NOT EXISTS because a dev database may already have
+-- them from the ddl-auto=update days.
+
+CREATE TABLE IF NOT EXISTS dashboard_counters (
+    name VARCHAR(64) PRIMARY KEY,
+    total BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS report_id_sequences (
+    sequence_date DATE PRIMARY KEY,
+    next_index BIGINT NOT NULL
+);
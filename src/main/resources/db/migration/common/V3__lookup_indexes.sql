@@ -0,0 +1,29 @@
+-- Indexes for the columns the repositories filter and sort on.
+
+-- findByReportId / findWithHistoryByReportId; also guarantees report IDs
+-- stay unique. Fails if duplicates already exist - fix those first.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_reports_report_id ON reports (report_id);
+
+-- Student dashboard: findByEmailOrderByTimestampDesc
+CREATE INDEX IF NOT EXISTS ix_reports_email_timestamp ON reports (email, timestamp);
+
+-- Admin list keyset pagination, top-3 recent, yearly range aggregates
+CREATE INDEX IF NOT EXISTS ix_reports_timestamp_id ON reports (timestamp, id);
+
+CREATE INDEX IF NOT EXISTS ix_reports_status ON reports (status);
+
+-- Batched history and evidence loads (PostgreSQL doesn't index FKs itself)
+CREATE INDEX IF NOT EXISTS ix_report_history_report_timestamp ON report_history (report_id, timestamp);
+CREATE INDEX IF NOT EXISTS ix_report_evidence_file_paths_report ON report_evidence_file_paths (report_id);
+
+-- Student dashboard: findByEmailOrderByPreferredDateTimeDesc
+CREATE INDEX IF NOT EXISTS ix_appointments_email_date ON appointments (email, preferred_date_time);
+
+-- Admin list keyset pagination and yearly range aggregates
+CREATE INDEX IF NOT EXISTS ix_appointments_date_id ON appointments (preferred_date_time, id);
+
+-- findByToken* lookups and the hourly expired-token purge
+CREATE INDEX IF NOT EXISTS ix_password_reset_tokens_token ON password_reset_tokens (token);
+CREATE INDEX IF NOT EXISTS ix_password_reset_tokens_expiry ON password_reset_tokens (expiry_date);
+CREATE INDEX IF NOT EXISTS ix_email_verification_tokens_token ON email_verification_tokens (token);
+CREATE INDEX IF NOT EXISTS ix_email_verification_tokens_expiry ON email_verification_tokens (expiry_date);
@@ -0,0 +1,27 @@
+-- Transactional email outbox: messages are rendered and inserted in the same
+-- transaction as the change that triggers them, then delivered by
+-- EmailOutboxDispatcher. TEXT is accepted by both H2 (as CLOB) and PostgreSQL.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sender VARCHAR(255) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    sent_at TIMESTAMP(6),
+    last_error VARCHAR(1000)
+);
+
+-- Evidence file names to attach at send time; removed with the message
+CREATE TABLE IF NOT EXISTS email_outbox_attachments (
+    email_id BIGINT NOT NULL REFERENCES email_outbox (id) ON DELETE CASCADE,
+    file_name VARCHAR(255)
+);
+
+-- Dispatcher poll: WHERE status = 'PENDING' AND next_attempt_at <= now
+CREATE INDEX IF NOT EXISTS ix_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS ix_email_outbox_attachments_email ON email_outbox_attachments (email_id);
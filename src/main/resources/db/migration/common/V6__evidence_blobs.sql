@@ -0,0 +1,15 @@
+-- Content-addressed evidence: one row per distinct stored file
+-- (<sha256><extension> under data/uploads) with the number of
+-- report_evidence_file_paths entries pointing at it. Files stored before
+-- this version are renamed and counted at startup by LegacyEvidenceMigration.
+
+CREATE TABLE IF NOT EXISTS evidence_blobs (
+    file_name VARCHAR(255) PRIMARY KEY,
+    sha256 VARCHAR(64) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+-- Evidence lookups by file name (reference renames, report lookups)
+CREATE INDEX IF NOT EXISTS ix_report_evidence_file_paths_name ON report_evidence_file_paths (evidence_file_paths);
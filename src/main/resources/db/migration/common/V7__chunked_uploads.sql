@@ -0,0 +1,19 @@
+-- Resumable evidence uploads. The bytes received so far live in
+-- data/uploads/.partial/<id>.part; once finalized the content is stored
+-- like any other upload under stored_file_name, waiting for a report to
+-- reference it. Rows are removed when a report claims them or they expire.
+
+CREATE TABLE IF NOT EXISTS chunked_uploads (
+    id VARCHAR(36) PRIMARY KEY,
+    owner_email VARCHAR(255) NOT NULL,
+    original_name VARCHAR(255) NOT NULL,
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL,
+    stored_file_name VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+-- Per-student active upload checks and expiry sweeps
+CREATE INDEX IF NOT EXISTS ix_chunked_uploads_owner ON chunked_uploads (owner_email);
+CREATE INDEX IF NOT EXISTS ix_chunked_uploads_updated_at ON chunked_uploads (updated_at);
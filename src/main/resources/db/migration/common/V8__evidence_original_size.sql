@@ -0,0 +1,11 @@
+-- Size of each evidence file as uploaded, next to the size stored, so the
+-- savings of image normalization can be measured. Files stored before
+-- normalization existed were kept as uploaded.
+
+ALTER TABLE evidence_blobs ADD COLUMN IF NOT EXISTS original_size_bytes BIGINT;
+UPDATE evidence_blobs SET original_size_bytes = size_bytes WHERE original_size_bytes IS NULL;
+ALTER TABLE evidence_blobs ALTER COLUMN original_size_bytes SET NOT NULL;
+
+-- A finalized upload may have been normalized, so its stored size can
+-- differ from total_size
+ALTER TABLE chunked_uploads ADD COLUMN IF NOT EXISTS stored_size_bytes BIGINT;
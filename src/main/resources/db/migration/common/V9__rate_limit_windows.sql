@@ -0,0 +1,14 @@
+-- Cluster-wide rate limiting (safepoint.rate-limit.backend=JDBC). One row
+-- per client, policy and fixed window, id "<policy>:<client>@<window>";
+-- nodes add their locally counted hits in batches. A row is still read as
+-- the previous window during the next one, so it expires two windows after
+-- it started.
+
+CREATE TABLE IF NOT EXISTS rate_limit_windows (
+    id VARCHAR(255) PRIMARY KEY,
+    hits BIGINT NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+
+-- Hourly purge of expired windows
+CREATE INDEX IF NOT EXISTS ix_rate_limit_windows_expires_at ON rate_limit_windows (expires_at);
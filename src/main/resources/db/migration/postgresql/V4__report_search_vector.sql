@@ -0,0 +1,12 @@
+-- Full-text search over reports (PostgresReportSearchService).
+-- The vector is maintained by the application on submit and status change;
+-- keep the expression in sync with PostgresReportSearchService.
+
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+UPDATE reports SET search_vector =
+    setweight(to_tsvector('simple', coalesce(report_id, '') || ' ' || coalesce(name, '') || ' ' || coalesce(category, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce((SELECT string_agg(h.description, ' ') FROM report_history h WHERE h.report_id = reports.id), '')), 'C');
+
+CREATE INDEX IF NOT EXISTS ix_reports_search_vector ON reports USING GIN (search_vector);
@@ -9,6 +9,127 @@ document.addEventListener('DOMContentLoaded', () => {
     const form = document.getElementById('reportForm');
     const spinnerOverlay = document.getElementById('spinner-overlay');
 
+    // Evidence goes up in resumable chunks before the form is submitted
+    const CHUNK_SIZE = 512 * 1024;
+    const MAX_CHUNK_ATTEMPTS = 8;
+
+    // Errors the server reported; retrying won't help
+    class UploadRejectedError extends Error {}
+
+    const delay = (ms) => new Promise(resolve => setTimeout(resolve, ms));
+
+    function csrfHeaders() {
+        const token = form.querySelector('input[name="_csrf"]');
+        return token ? { 'X-CSRF-TOKEN': token.value } : {};
+    }
+
+    async function rejection(response, fallback) {
+        const data = await response.json().catch(() => ({}));
+        return new UploadRejectedError(data.message || fallback);
+    }
+
+    async function currentOffset(uploadUrl) {
+        const response = await fetch(uploadUrl, { method: 'HEAD', headers: csrfHeaders(), cache: 'no-store' });
+        if (!response.ok) {
+            throw new UploadRejectedError('An upload expired. Please try again.');
+        }
+        return Number(response.headers.get('Upload-Offset'));
+    }
+
+    async function createUpload(file) {
+        const response = await fetch('/uploads', {
+            method: 'POST',
+            headers: { ...csrfHeaders(), 'Content-Type': 'application/x-www-form-urlencoded' },
+            body: new URLSearchParams({ filename: file.name, size: file.size })
+        });
+        if (!response.ok) {
+            throw await rejection(response, `Could not upload "${file.name}".`);
+        }
+        return (await response.json()).id;
+    }
+
+    // Uploads one file and returns its upload id. The id is remembered for
+    // the tab, so a retried submission resumes instead of starting over.
+    async function uploadFile(file) {
+        const storageKey = `upload:${file.name}:${file.size}:${file.lastModified}`;
+        let uploadId = sessionStorage.getItem(storageKey);
+        let offset = 0;
+        if (uploadId) {
+            try {
+                offset = await currentOffset(`/uploads/${uploadId}`);
+            } catch (error) {
+                uploadId = null;
+            }
+        }
+        if (!uploadId) {
+            uploadId = await createUpload(file);
+            sessionStorage.setItem(storageKey, uploadId);
+        }
+
+        const uploadUrl = `/uploads/${uploadId}`;
+        let failures = 0;
+        while (offset < file.size) {
+            try {
+                const response = await fetch(uploadUrl, {
+                    method: 'PATCH',
+                    headers: {
+                        ...csrfHeaders(),
+                        'Content-Type': 'application/offset+octet-stream',
+                        'Upload-Offset': String(offset)
+                    },
+                    body: file.slice(offset, offset + CHUNK_SIZE)
+                });
+                // 409 means the server has a different offset; it tells us which
+                if (response.status === 204 || response.status === 409) {
+                    offset = Number(response.headers.get('Upload-Offset'));
+                    failures = 0;
+                    continue;
+                }
+                if (response.status === 400 || response.status === 404) {
+                    throw await rejection(response, `Could not upload "${file.name}".`);
+                }
+                throw new Error(`Upload failed with status ${response.status}`);
+            } catch (error) {
+                if (error instanceof UploadRejectedError || ++failures >= MAX_CHUNK_ATTEMPTS) {
+                    throw error;
+                }
+                await delay(Math.min(30000, 1000 * 2 ** failures));
+                // Ask how much arrived, so only the missing bytes are sent again
+                try {
+                    offset = await currentOffset(uploadUrl);
+                } catch (offsetError) {
+                    if (offsetError instanceof UploadRejectedError) {
+                        throw offsetError;
+                    }
+                }
+            }
+        }
+
+        const response = await fetch(`${uploadUrl}/finalize`, { method: 'POST', headers: csrfHeaders() });
+        if (!response.ok) {
+            sessionStorage.removeItem(storageKey);
+            throw await rejection(response, `Could not upload "${file.name}".`);
+        }
+        return uploadId;
+    }
+
+    async function uploadEvidence(filesInput) {
+        const uploadIds = [];
+        for (const file of filesInput.files) {
+            uploadIds.push(await uploadFile(file));
+        }
+        for (const uploadId of uploadIds) {
+            const input = document.createElement('input');
+            input.type = 'hidden';
+            input.name = 'uploadIds';
+            input.value = uploadId;
+            input.dataset.uploadId = '';
+            form.appendChild(input);
+        }
+        // Already on the server; don't send the files a second time
+        filesInput.disabled = true;
+    }
+
     // Function to sanitize HTML content to prevent XSS
     function sanitizeHTML(str) {
         const temp = document.createElement('div');
@@ -48,6 +169,22 @@ document.addEventListener('DOMContentLoaded', () => {
             return;
         }
         spinnerOverlay.classList.add('show');
+
+        const evidenceInput = document.getElementById('files');
+        if (evidenceInput && evidenceInput.files.length > 0 && window.fetch) {
+            event.preventDefault();
+            uploadEvidence(evidenceInput)
+                .then(() => form.submit())
+                .catch(error => {
+                    form.querySelectorAll('input[data-upload-id]').forEach(input => input.remove());
+                    evidenceInput.disabled = false;
+                    spinnerOverlay.classList.remove('show');
+                    validationAlert.textContent = error instanceof UploadRejectedError
+                        ? error.message
+                        : 'Your files could not be uploaded. Please check your connection and try again.';
+                    validationAlert.classList.remove('d-none');
+                });
+        }
     });
 
     createMultiStepForm('reportForm', {
@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.keiaa.safepoint.config.FileServingProperties;
+import com.keiaa.safepoint.config.FileServingProperties.Offload;
+import com.keiaa.safepoint.service.utility.UploadLayout;
+
+/**
+ * Downloads a stored evidence file through /files/ with each proxy offload
+ * mode: the app answers with the proxy header and leaves the body empty.
+ * The data directory is a temporary one, so nothing is left in the working copy.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+class EvidenceDownloadTest {
+
+    private static final byte[] CONTENT = "not really a jpeg".getBytes();
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("safepoint.storage.data-dir", dataDir::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileServingProperties properties;
+
+    @Autowired
+    private UploadLayout uploadLayout;
+
+    private String filename;
+    private Path file;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        String hash = (UUID.randomUUID().toString() + UUID.randomUUID()).replace("-", "");
+        filename = hash + ".jpg";
+        file = uploadLayout.pathFor(filename);
+        Files.createDirectories(file.getParent());
+        Files.write(file, CONTENT);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        properties.setOffload(Offload.NONE);
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void xAccelRedirectPointsAtTheInternalLocation() throws Exception {
+        properties.setOffload(Offload.X_ACCEL_REDIRECT);
+
+        mockMvc.perform(get("/files/{filename}", filename))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Accel-Redirect",
+                        "/internal-files/uploads/" + filename.substring(0, 2) + "/" + filename.substring(2, 4) + "/" + filename))
+                .andExpect(header().doesNotExist("X-Sendfile"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void xSendfileNamesTheAbsolutePath() throws Exception {
+        properties.setOffload(Offload.X_SENDFILE);
+
+        mockMvc.perform(get("/files/{filename}", filename))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Sendfile", file.toAbsolutePath().normalize().toString()))
+                .andExpect(header().doesNotExist("X-Accel-Redirect"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void withoutOffloadTheAppSendsTheBody() throws Exception {
+        mockMvc.perform(get("/files/{filename}", filename))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Accel-Redirect"))
+                .andExpect(header().doesNotExist("X-Sendfile"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void invalidNamesAreRejectedWithoutOffloading() throws Exception {
+        properties.setOffload(Offload.X_ACCEL_REDIRECT);
+
+        for (String name : new String[] {"evil..jpg", "bad name!.jpg", "missing.jpg"}) {
+            mockMvc.perform(get("/files/{filename}", name))
+                    .andExpect(status().isNotFound())
+                    .andExpect(header().doesNotExist("X-Accel-Redirect"));
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "STUDENT")
+    void studentsCannotFetchEvidence() throws Exception {
+        mockMvc.perform(get("/files/{filename}", filename))
+                .andExpect(status().isForbidden());
+    }
+}
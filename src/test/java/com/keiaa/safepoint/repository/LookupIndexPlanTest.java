@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Checks that H2 plans the SQL behind each indexed finder with the index
+ * V3 created for it. The batched history and evidence loads are left out:
+ * H2 indexes foreign keys itself and may plan those with its own index.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class LookupIndexPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> finders() {
+        return Stream.of(
+                Arguments.of("ReportRepository.findByReportId",
+                        "SELECT * FROM reports WHERE report_id = '260101-01-abcd'",
+                        "ux_reports_report_id"),
+                Arguments.of("ReportRepository.findByEmailOrderByTimestampDesc",
+                        "SELECT * FROM reports WHERE email = 'student@example.com' ORDER BY timestamp DESC",
+                        "ix_reports_email_timestamp"),
+                Arguments.of("ReportRepository.countByTimestampBetween",
+                        "SELECT COUNT(*) FROM reports WHERE timestamp BETWEEN TIMESTAMP '2026-01-01 00:00:00' "
+                                + "AND TIMESTAMP '2026-12-31 23:59:59'",
+                        "ix_reports_timestamp_id"),
+                Arguments.of("ReportRepository.countByStatusIn",
+                        "SELECT COUNT(*) FROM reports WHERE status = 0",
+                        "ix_reports_status"),
+                Arguments.of("AppointmentRepository.findByEmailOrderByPreferredDateTimeDesc",
+                        "SELECT * FROM appointments WHERE email = 'student@example.com' ORDER BY preferred_date_time DESC",
+                        "ix_appointments_email_date"),
+                Arguments.of("AppointmentRepository.countByPreferredDateTimeBetween",
+                        "SELECT COUNT(*) FROM appointments WHERE preferred_date_time BETWEEN TIMESTAMP '2026-01-01 00:00:00' "
+                                + "AND TIMESTAMP '2026-12-31 23:59:59'",
+                        "ix_appointments_date_id"),
+                Arguments.of("PasswordResetTokenRepository.findByTokenAndUsedFalse",
+                        "SELECT * FROM password_reset_tokens WHERE token = 'abc' AND used = FALSE",
+                        "ix_password_reset_tokens_token"),
+                Arguments.of("PasswordResetTokenRepository.deleteExpiredTokens",
+                        "DELETE FROM password_reset_tokens WHERE expiry_date < TIMESTAMP '2026-01-01 00:00:00'",
+                        "ix_password_reset_tokens_expiry"),
+                Arguments.of("EmailVerificationTokenRepository.findByToken",
+                        "SELECT * FROM email_verification_tokens WHERE token = 'abc'",
+                        "ix_email_verification_tokens_token"),
+                Arguments.of("EmailVerificationTokenRepository.findByExpiryDateBefore",
+                        "SELECT * FROM email_verification_tokens WHERE expiry_date < TIMESTAMP '2026-01-01 00:00:00'",
+                        "ix_email_verification_tokens_expiry"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderUsesItsIndex(String finder, String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertThat(plan).containsIgnoringCase(index);
+    }
+}
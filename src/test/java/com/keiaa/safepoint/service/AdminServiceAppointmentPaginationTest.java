@@ -0,0 +1,126 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.keiaa.safepoint.model.Appointment;
+import com.keiaa.safepoint.model.dto.CursorPage;
+import com.keiaa.safepoint.model.dto.PageCursor;
+import com.keiaa.safepoint.repository.AppointmentRepository;
+
+/**
+ * Walks the admin appointment list page by page, with appointments that
+ * share a time and appointments that have none.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AdminServiceAppointmentPaginationTest {
+
+    private static final int PAGE_SIZE = 2;
+    private static final int MAX_PAGES = 20;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private List<Long> expectedOrder;
+
+    @BeforeEach
+    void seed() {
+        appointmentRepository.deleteAll();
+        LocalDateTime base = LocalDateTime.now().plusDays(7).withNano(0);
+        List<Appointment> saved = new ArrayList<>();
+        saved.add(appointmentRepository.save(appointment(null)));
+        saved.add(appointmentRepository.save(appointment(base.plusHours(2))));
+        saved.add(appointmentRepository.save(appointment(base)));
+        saved.add(appointmentRepository.save(appointment(null)));
+        saved.add(appointmentRepository.save(appointment(base.plusHours(2))));
+        saved.add(appointmentRepository.save(appointment(base.plusHours(1))));
+        saved.add(appointmentRepository.save(appointment(null)));
+
+        expectedOrder = saved.stream()
+                .sorted(Comparator.comparing(Appointment::getPreferredDateTime,
+                        Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+                        .thenComparing(Appointment::getId))
+                .map(Appointment::getId)
+                .toList();
+    }
+
+    @Test
+    void nextWalksEveryAppointmentOnceWithUndatedOnesLast() {
+        List<Long> seen = new ArrayList<>();
+        CursorPage<Appointment> page = adminService.getAppointments(null, null, PAGE_SIZE, false);
+        for (int pages = 1; ; pages++) {
+            assertThat(pages).as("pages walked").isLessThanOrEqualTo(MAX_PAGES);
+            page.getContent().forEach(appointment -> seen.add(appointment.getId()));
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            page = adminService.getAppointments(page.getNextCursor(), null, PAGE_SIZE, false);
+        }
+
+        assertThat(seen).containsExactlyElementsOf(expectedOrder);
+    }
+
+    @Test
+    void previousWalksBackFromTheUndatedTail() {
+        // Start on the last page, which only holds undated appointments
+        Long lastId = expectedOrder.get(expectedOrder.size() - 3);
+        String afterLastDated = new PageCursor(null, lastId).encode();
+        CursorPage<Appointment> page = adminService.getAppointments(afterLastDated, null, PAGE_SIZE, false);
+        assertThat(page.getContent()).extracting(Appointment::getId)
+                .containsExactlyElementsOf(expectedOrder.subList(expectedOrder.size() - 2, expectedOrder.size()));
+
+        List<Long> seen = new ArrayList<>();
+        for (int pages = 1; ; pages++) {
+            assertThat(pages).as("pages walked").isLessThanOrEqualTo(MAX_PAGES);
+            List<Long> ids = new ArrayList<>(page.getContent().stream().map(Appointment::getId).toList());
+            Collections.reverse(ids);
+            seen.addAll(ids);
+            if (page.getPreviousCursor() == null) {
+                break;
+            }
+            page = adminService.getAppointments(null, page.getPreviousCursor(), PAGE_SIZE, false);
+        }
+
+        List<Long> reversed = new ArrayList<>(expectedOrder);
+        Collections.reverse(reversed);
+        assertThat(seen).containsExactlyElementsOf(reversed);
+    }
+
+    @Test
+    void undatedCursorsSurviveTheRoundTrip() {
+        PageCursor cursor = PageCursor.decode(new PageCursor(null, 42L).encode()).orElseThrow();
+
+        assertThat(cursor.getTimestamp()).isNull();
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+
+    private static Appointment appointment(LocalDateTime preferredDateTime) {
+        Appointment appointment = new Appointment();
+        appointment.setName("Student");
+        appointment.setEmail("student@example.com");
+        appointment.setReason("Test appointment");
+        appointment.setPreferredDateTime(preferredDateTime);
+        return appointment;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.keiaa.safepoint.model.Appointment;
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.model.dto.YearlyReportData;
+import com.keiaa.safepoint.model.enums.AppointmentStatus;
+import com.keiaa.safepoint.model.enums.ReportStatus;
+import com.keiaa.safepoint.repository.AppointmentRepository;
+import com.keiaa.safepoint.repository.ReportRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Compares the yearly report built from GROUP BY queries with the previous
+ * approach of loading the year's entities and counting them in memory, on
+ * a seeded year. Both must agree on every count; the grouped path must not
+ * load a single entity. Timings of both are logged for reference.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class AdminServiceYearlyReportTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminServiceYearlyReportTest.class);
+
+    // A year no other test writes into
+    private static final String YEAR = "2019";
+    private static final int REPORTS = 3000;
+    private static final int APPOINTMENTS = 1000;
+    private static final String[] CATEGORIES = {"Physical", "Verbal", "Cyber", "Social", "Other"};
+    private static final int RUNS = 5;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Report> reports = new ArrayList<>();
+    private final List<Appointment> appointments = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        LocalDateTime start = LocalDateTime.of(2019, 1, 1, 0, 0);
+        for (int i = 0; i < REPORTS; i++) {
+            reports.add(report(start.plusMinutes(i * 170L), CATEGORIES[i % CATEGORIES.length],
+                    ReportStatus.values()[i % ReportStatus.values().length]));
+        }
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            appointments.add(appointment(start.plusMinutes(i * 500L),
+                    AppointmentStatus.values()[i % AppointmentStatus.values().length]));
+        }
+        // Just outside the year on either side
+        reports.add(report(start.minusSeconds(1), "Other", ReportStatus.RESOLVED));
+        reports.add(report(start.plusYears(1), "Other", ReportStatus.RESOLVED));
+        appointments.add(appointment(start.plusYears(1), AppointmentStatus.PENDING));
+        reportRepository.saveAll(reports);
+        appointmentRepository.saveAll(appointments);
+    }
+
+    @AfterEach
+    void removeSeed() {
+        reportRepository.deleteAll(reports);
+        appointmentRepository.deleteAll(appointments);
+    }
+
+    @Test
+    void groupedCountsMatchTheEntityCounts() {
+        YearlyReportData grouped = adminService.getYearlyReportData(YEAR);
+        YearlyReportData loaded = loadAndCount();
+
+        assertThat(grouped.getTotalReports()).isEqualTo(REPORTS).isEqualTo(loaded.getTotalReports());
+        assertThat(grouped.getTotalAppointments()).isEqualTo(APPOINTMENTS).isEqualTo(loaded.getTotalAppointments());
+        assertThat(grouped.getReportCategoryCounts()).isEqualTo(loaded.getReportCategoryCounts());
+        assertThat(grouped.getReportStatusCounts()).isEqualTo(loaded.getReportStatusCounts());
+        assertThat(grouped.getAppointmentStatusCounts()).isEqualTo(loaded.getAppointmentStatusCounts());
+    }
+
+    @Test
+    void countsTheLastSecondOfTheYear() {
+        Report late = report(LocalDateTime.of(2019, 12, 31, 23, 59, 59, 500_000_000), "Cyber", ReportStatus.PENDING_REVIEW);
+        reports.add(reportRepository.save(late));
+
+        assertThat(adminService.getYearlyReportData(YEAR).getTotalReports()).isEqualTo(REPORTS + 1);
+    }
+
+    @Test
+    void groupedPathLoadsNoEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long grouped = time(() -> adminService.getYearlyReportData(YEAR), statistics);
+        long groupedLoads = statistics.getEntityLoadCount();
+        long loaded = time(this::loadAndCount, statistics);
+        long loadedLoads = statistics.getEntityLoadCount();
+
+        logger.info("Yearly report over {} reports and {} appointments: grouped {} us/op, entity load {} us/op",
+                REPORTS, APPOINTMENTS, grouped / 1000, loaded / 1000);
+        assertThat(groupedLoads).isZero();
+        assertThat(loadedLoads).isEqualTo((long) (REPORTS + APPOINTMENTS) * RUNS);
+    }
+
+    /**
+     * Runs the supplier once to warm up, then RUNS times with fresh statistics.
+     *
+     * @return Average nanoseconds per run
+     */
+    private long time(Supplier<YearlyReportData> run, Statistics statistics) {
+        run.get();
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            run.get();
+        }
+        return (System.nanoTime() - start) / RUNS;
+    }
+
+    /**
+     * The yearly report as it was built before the GROUP BY queries: every
+     * entity of the year is loaded and counted in memory. Uses the same
+     * half-open range so only the approach differs.
+     */
+    private YearlyReportData loadAndCount() {
+        LocalDateTime startOfYear = LocalDateTime.of(Integer.parseInt(YEAR), 1, 1, 0, 0);
+        LocalDateTime endOfYear = startOfYear.plusYears(1).minusNanos(1);
+
+        List<Report> yearReports = reportRepository.findByTimestampBetweenOrderByTimestamp(startOfYear, endOfYear);
+        List<Appointment> yearAppointments =
+                appointmentRepository.findByPreferredDateTimeBetweenOrderByPreferredDateTime(startOfYear, endOfYear);
+
+        Map<String, Long> categoryCounts = yearReports.stream()
+                .collect(Collectors.groupingBy(Report::getCategory, Collectors.counting()));
+        Map<ReportStatus, Long> reportStatusCounts = new EnumMap<>(ReportStatus.class);
+        for (ReportStatus status : ReportStatus.values()) {
+            reportStatusCounts.put(status, 0L);
+        }
+        reportStatusCounts.putAll(yearReports.stream()
+                .collect(Collectors.groupingBy(Report::getStatus, Collectors.counting())));
+        Map<AppointmentStatus, Long> appointmentStatusCounts = new EnumMap<>(AppointmentStatus.class);
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            appointmentStatusCounts.put(status, 0L);
+        }
+        appointmentStatusCounts.putAll(yearAppointments.stream()
+                .collect(Collectors.groupingBy(Appointment::getStatus, Collectors.counting())));
+
+        return new YearlyReportData(YEAR, YEAR, categoryCounts, reportStatusCounts, appointmentStatusCounts,
+                yearReports.size(), yearAppointments.size());
+    }
+
+    private static Report report(LocalDateTime timestamp, String category, ReportStatus status) {
+        Report report = new Report();
+        report.setReportId("RPT-YEARLY");
+        report.setName("Student");
+        report.setEmail("student@example.com");
+        report.setCategory(category);
+        report.setDescription("Seeded yearly report");
+        report.setTimestamp(timestamp);
+        report.setStatus(status);
+        return report;
+    }
+
+    private static Appointment appointment(LocalDateTime preferredDateTime, AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setName("Student");
+        appointment.setEmail("student@example.com");
+        appointment.setReason("Seeded appointment");
+        appointment.setPreferredDateTime(preferredDateTime);
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
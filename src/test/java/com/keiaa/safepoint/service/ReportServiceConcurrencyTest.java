@@ -0,0 +1,112 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.keiaa.safepoint.exception.DailyReportLimitExceededException;
+import com.keiaa.safepoint.exception.UploadRejectedException;
+import com.keiaa.safepoint.model.Report;
+import com.keiaa.safepoint.repository.ReportRepository;
+
+/**
+ * Hammers ReportService.submitReport from more threads than the connection
+ * pool has connections, with blocks small enough that they are refilled
+ * many times along the way.
+ */
+@SpringBootTest(properties = {
+        "safepoint.report-ids.daily-limit=" + ReportServiceConcurrencyTest.DAILY_LIMIT,
+        "safepoint.report-ids.block-size=3"
+})
+@ActiveProfiles("test")
+class ReportServiceConcurrencyTest {
+
+    static final int DAILY_LIMIT = 30;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Test
+    void concurrentSubmissionsGetUniqueIdsUpToTheDailyLimit() throws Exception {
+        // More failed submissions than the limit; none of them may use it up
+        List<Callable<String>> failing = new ArrayList<>();
+        for (int i = 0; i < DAILY_LIMIT + 20; i++) {
+            int n = i;
+            failing.add(() -> submit(n, List.of("missing-upload-" + n)));
+        }
+        Outcome rejected = runConcurrently(failing);
+        assertThat(rejected.reportIds).isEmpty();
+        assertThat(rejected.failures).allMatch(UploadRejectedException.class::isInstance);
+
+        List<Callable<String>> valid = new ArrayList<>();
+        for (int i = 0; i < DAILY_LIMIT * 2; i++) {
+            int n = i;
+            valid.add(() -> submit(n, List.of()));
+        }
+        Outcome accepted = runConcurrently(valid);
+
+        assertThat(accepted.reportIds).hasSize(DAILY_LIMIT);
+        assertThat(new HashSet<>(accepted.reportIds)).hasSize(DAILY_LIMIT);
+        assertThat(accepted.failures)
+                .hasSize(DAILY_LIMIT)
+                .allMatch(DailyReportLimitExceededException.class::isInstance);
+
+        LocalDate today = LocalDate.now();
+        assertThat(reportRepository.countByTimestampBetween(today.atStartOfDay(), today.plusDays(1).atStartOfDay()))
+                .isEqualTo(DAILY_LIMIT);
+    }
+
+    private String submit(int n, List<String> uploadIds) {
+        Report report = new Report();
+        report.setName("Student " + n);
+        report.setEmail("student" + n + "@example.com");
+        report.setCategory("Verbal");
+        report.setDescription("Concurrent submission number " + n);
+        return reportService.submitReport(report, null, uploadIds, report.getEmail()).getReportId();
+    }
+
+    private Outcome runConcurrently(List<Callable<String>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Outcome outcome = new Outcome();
+        try {
+            for (Future<String> result : executor.invokeAll(tasks)) {
+                try {
+                    outcome.reportIds.add(result.get());
+                } catch (ExecutionException e) {
+                    outcome.failures.add(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return outcome;
+    }
+
+    private static final class Outcome {
+        private final List<String> reportIds = new ArrayList<>();
+        private final List<Throwable> failures = new ArrayList<>();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The terms both search implementations match on, and the tsquery the
+ * PostgreSQL one builds from them.
+ */
+class SearchTermsTest {
+
+    @Test
+    void splitsOnAnythingButLettersAndDigits() {
+        assertThat(SearchTerms.tokenize("RPT-20250101-0001, Bully!"))
+                .containsExactly("rpt", "20250101", "0001", "bully");
+    }
+
+    @Test
+    void requiresEveryTermAsAPrefix() {
+        assertThat(SearchTerms.toPrefixTsquery(SearchTerms.tokenize("bull hall bull")))
+                .isEqualTo("bull:* & hall:*");
+    }
+
+    @Test
+    void dropsTsqueryOperators() {
+        assertThat(SearchTerms.toPrefixTsquery(SearchTerms.tokenize("!bully | (hall) & 'x':*")))
+                .isEqualTo("bully:* & hall:* & x:*");
+        assertThat(SearchTerms.toPrefixTsquery(SearchTerms.tokenize("&|!"))).isEmpty();
+    }
+}
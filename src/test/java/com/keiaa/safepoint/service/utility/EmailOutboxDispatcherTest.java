@@ -0,0 +1,135 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.keiaa.safepoint.model.OutboxEmail;
+import com.keiaa.safepoint.model.enums.OutboxStatus;
+import com.keiaa.safepoint.repository.OutboxEmailRepository;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Runs the outbox against GreenMail on the port the test mail settings
+ * point at. GreenMail is restarted for every test, so pooled connections
+ * are always checked before reuse.
+ */
+@SpringBootTest(properties = {
+        // Only the test drives the dispatcher
+        "safepoint.mail.outbox.poll-interval=PT1H",
+        "safepoint.mail.outbox.max-attempts=3",
+        "safepoint.mail.outbox.initial-backoff=1m",
+        "safepoint.mail.outbox.max-backoff=1h",
+        "safepoint.mail.pool.validate-after-idle=0s"
+})
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    private static final String SENDER = "safepoint@localhost";
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser(SENDER, "secret"));
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @BeforeEach
+    void clearOutbox() {
+        outboxEmailRepository.deleteAll();
+    }
+
+    @Test
+    void dispatchesQueuedMessages() throws Exception {
+        OutboxEmail first = emailOutboxService.enqueue(SENDER, "student@example.com", "First", "<p>One</p>", List.of());
+        OutboxEmail second = emailOutboxService.enqueue(SENDER, "admin@example.com", "Second", "<p>Two</p>", List.of());
+
+        dispatcher.dispatchPending();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+        assertThat(greenMail.getReceivedMessages())
+                .extracting(MimeMessage::getSubject)
+                .containsExactlyInAnyOrder("First", "Second");
+        for (OutboxEmail email : List.of(first, second)) {
+            OutboxEmail stored = outboxEmailRepository.findById(email.getId()).orElseThrow();
+            assertThat(stored.getStatus()).isEqualTo(OutboxStatus.SENT);
+            assertThat(stored.getSentAt()).isNotNull();
+            assertThat(stored.getAttempts()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void backsOffWhileTheServerIsDownAndDeadLettersAfterMaxAttempts() {
+        greenMail.stop();
+        OutboxEmail email = emailOutboxService.enqueue(SENDER, "student@example.com", "Retry", "<p>Retry</p>", List.of());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatchPending();
+        LocalDateTime after = LocalDateTime.now();
+
+        OutboxEmail stored = outboxEmailRepository.findById(email.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(stored.getAttempts()).isEqualTo(1);
+        assertThat(stored.getLastError()).isNotBlank();
+        assertThat(stored.getNextAttemptAt()).isBetween(before.plusMinutes(1), after.plusMinutes(1));
+
+        // Not due yet, so not attempted again
+        dispatcher.dispatchPending();
+        assertThat(outboxEmailRepository.findById(email.getId()).orElseThrow().getAttempts()).isEqualTo(1);
+
+        // The second failure doubles the delay
+        makeDue(email.getId());
+        before = LocalDateTime.now();
+        dispatcher.dispatchPending();
+        after = LocalDateTime.now();
+
+        stored = outboxEmailRepository.findById(email.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(stored.getAttempts()).isEqualTo(2);
+        assertThat(stored.getNextAttemptAt()).isBetween(before.plusMinutes(2), after.plusMinutes(2));
+
+        // The third failure uses up max-attempts
+        makeDue(email.getId());
+        dispatcher.dispatchPending();
+
+        stored = outboxEmailRepository.findById(email.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxStatus.DEAD);
+        assertThat(stored.getAttempts()).isEqualTo(3);
+        assertThat(emailOutboxService.countByStatus(OutboxStatus.DEAD)).isEqualTo(1);
+
+        // Dead messages are never claimed again
+        makeDue(email.getId());
+        dispatcher.dispatchPending();
+        assertThat(outboxEmailRepository.findById(email.getId()).orElseThrow().getAttempts()).isEqualTo(3);
+    }
+
+    private void makeDue(Long id) {
+        OutboxEmail email = outboxEmailRepository.findById(id).orElseThrow();
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxEmailRepository.save(email);
+    }
+}
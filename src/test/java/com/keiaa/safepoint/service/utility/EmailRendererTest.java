@@ -0,0 +1,78 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.thymeleaf.context.Context;
+
+/**
+ * Renders every email template and checks that the pre-rendered header and
+ * footer are inserted as markup, once each, around the escaped variables.
+ */
+class EmailRendererTest {
+
+    private static final String HEADER = "<h1 class=\"logo\">SafePoint</h1>";
+    private static final String FOOTER = "<p>This is an automated message. Please do not reply.</p>";
+
+    private static EmailRenderer renderer;
+
+    @BeforeAll
+    static void initialize() {
+        renderer = new EmailRenderer();
+        renderer.initialize();
+    }
+
+    static List<String> templates() {
+        return EmailRenderer.TEMPLATES;
+    }
+
+    @ParameterizedTest
+    @MethodSource("templates")
+    void insertsHeaderAndFooter(String template) {
+        String html = renderer.render(template, variables());
+
+        assertThat(html).containsOnlyOnce(HEADER).containsOnlyOnce(FOOTER);
+        assertThat(html.indexOf(HEADER)).isLessThan(html.indexOf(FOOTER));
+        assertThat(html).doesNotContain("&lt;h1").doesNotContain("th:");
+    }
+
+    @ParameterizedTest
+    @MethodSource("templates")
+    void rendersTheSameOutputTwice(String template) {
+        assertThat(renderer.render(template, variables())).isEqualTo(renderer.render(template, variables()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("templates")
+    void escapesVariables(String template) {
+        String html = renderer.render(template, variables());
+
+        assertThat(html).doesNotContain("<b>Sam</b>");
+    }
+
+    private static Context variables() {
+        Context context = new Context();
+        context.setVariable("name", "<b>Sam</b>");
+        context.setVariable("preferredDateTime", "March 3, 2025 at 10:00 AM");
+        context.setVariable("oldDateTime", "March 3, 2025 at 10:00 AM");
+        context.setVariable("newDateTime", "March 4, 2025 at 2:00 PM");
+        context.setVariable("reason", "Follow-up");
+        context.setVariable("reportId", "RPT-123");
+        context.setVariable("category", "Bullying");
+        context.setVariable("description", "Description");
+        context.setVariable("externalLink", "https://example.com/post");
+        context.setVariable("verificationUrl", "https://example.com/verify?token=abc");
+        context.setVariable("resetLink", "https://example.com/reset?token=abc");
+        return context;
+    }
+}
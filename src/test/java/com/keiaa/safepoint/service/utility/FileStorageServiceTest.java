@@ -0,0 +1,143 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.keiaa.safepoint.config.MimeTypeProperties;
+import com.keiaa.safepoint.config.NormalizationProperties;
+import com.keiaa.safepoint.config.StorageProperties;
+
+/**
+ * Counts the bytes read while storing an upload: validating, hashing and
+ * writing it must take a single pass over the content.
+ */
+class FileStorageServiceTest {
+
+    // Several times the detection prefix, so a second pass would show
+    private static final int SIZE = 1024 * 1024;
+
+    @TempDir
+    Path dataDir;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private FileStorageService service;
+    private UploadLayout uploadLayout;
+    private byte[] png;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setDataDir(dataDir.toString());
+        uploadLayout = new UploadLayout();
+        ReflectionTestUtils.setField(uploadLayout, "storageProperties", storageProperties);
+        uploadLayout.init();
+
+        MimeTypeProperties mimeTypes = new MimeTypeProperties();
+        mimeTypes.setAllowed(Set.of("image/png"));
+        mimeTypes.setExtensions(Map.of("image/png", ".png"));
+        FileValidationService fileValidationService = new FileValidationService();
+        ReflectionTestUtils.setField(fileValidationService, "mimeTypeProperties", mimeTypes);
+
+        service = new FileStorageService() {
+            @Override
+            InputStream openReceived(Path source) throws IOException {
+                return new CountingInputStream(super.openReceived(source), bytesRead);
+            }
+        };
+        ReflectionTestUtils.setField(service, "fileValidationService", fileValidationService);
+        ReflectionTestUtils.setField(service, "evidenceBlobService", mock(EvidenceBlobService.class));
+        ReflectionTestUtils.setField(service, "uploadLayout", uploadLayout);
+        // Normalization is off: the mock returns null for every file
+        ReflectionTestUtils.setField(service, "imageNormalizer", mock(ImageNormalizer.class));
+        ReflectionTestUtils.setField(service, "normalizationProperties", new NormalizationProperties());
+        service.init();
+
+        png = new byte[SIZE];
+        new Random(42).nextBytes(png);
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        System.arraycopy(signature, 0, png, 0, signature.length);
+    }
+
+    @Test
+    void storeReadsTheUploadOnce() throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("file", "evidence.png", "image/png", png) {
+            @Override
+            public InputStream getInputStream() {
+                return new CountingInputStream(super.getInputStream(), bytesRead);
+            }
+        };
+
+        String fileName = service.store(upload);
+
+        assertThat(bytesRead.get()).isEqualTo(SIZE);
+        assertThat(Files.readAllBytes(uploadLayout.pathFor(fileName))).isEqualTo(png);
+    }
+
+    @Test
+    void storeReceivedReadsTheFileOnce() throws Exception {
+        Path received = Files.write(uploadLayout.getRoot().resolve("received.part"), png);
+
+        FileStorageService.StoredFile stored = service.storeReceived(received);
+
+        assertThat(bytesRead.get()).isEqualTo(SIZE);
+        assertThat(stored.getSizeBytes()).isEqualTo(SIZE);
+        assertThat(Files.readAllBytes(uploadLayout.pathFor(stored.getFileName()))).isEqualTo(png);
+    }
+
+    @Test
+    void storeAndStoreReceivedAgreeOnTheName() throws Exception {
+        String fromUpload = service.store(new MockMultipartFile("file", "evidence.png", "image/png", png));
+        Path received = Files.write(uploadLayout.getRoot().resolve("received.part"), png);
+
+        assertThat(service.storeReceived(received).getFileName()).isEqualTo(fromUpload);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
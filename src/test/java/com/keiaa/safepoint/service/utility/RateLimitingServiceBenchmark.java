@@ -0,0 +1,106 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.keiaa.safepoint.config.RateLimitProperties;
+
+/**
+ * Throughput of the in-memory rate limiter across threads: every thread on
+ * one client (all compare-and-sets contend on one bucket), threads spread
+ * over many clients, and the same with the key cap forcing shrinks.
+ * RateLimitingServiceTest checks the counts; this only measures.
+ *
+ * Not run by the build. After mvn test-compile, run main() from the IDE,
+ * or java -cp with target/test-classes, target/classes and the test
+ * classpath, passing org.openjdk.jmh.Main RateLimitingServiceBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitingServiceBenchmark {
+
+    // Distinct clients the spread benchmarks pick from
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private RateLimitingService service;
+    private RateLimitingService capped;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        service = newService(100_000);
+        // Half the clients fit, so acquisitions keep triggering shrink()
+        capped = newService(Math.max(1, clients / 2));
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10." + (i >> 16 & 0xff) + '.' + (i >> 8 & 0xff) + '.' + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public boolean oneClient() {
+        return service.isAllowedForReports("10.0.0.1");
+    }
+
+    @Benchmark
+    public boolean spreadClients() {
+        return service.isAllowedForReports(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public boolean spreadClientsOverKeyCap() {
+        return capped.isAllowedForReports(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public boolean loginCheck() {
+        return service.isAllowedForLogin(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    private static RateLimitingService newService(int maxKeys) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxKeys(maxKeys);
+        // Refills fast enough that clients are neither always allowed nor always denied
+        properties.setReports(new RateLimitProperties.Policy(20, Duration.ofMillis(10)));
+        properties.setLogin(new RateLimitProperties.Policy(10, Duration.ofMinutes(5)));
+        RateLimitingService service = new RateLimitingService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        return service;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitingServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
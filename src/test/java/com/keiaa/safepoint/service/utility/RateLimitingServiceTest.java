@@ -0,0 +1,166 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.keiaa.safepoint.config.RateLimitProperties;
+
+/**
+ * Races the in-memory buckets. Periods are long enough that no token is
+ * earned back while a test runs, so the counts are exact.
+ */
+@Timeout(60)
+class RateLimitingServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int CAPACITY = 20;
+
+    private RateLimitProperties properties;
+    private RateLimitingService service;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setReports(new RateLimitProperties.Policy(CAPACITY, Duration.ofHours(1)));
+        properties.setLogin(new RateLimitProperties.Policy(3, Duration.ofHours(1)));
+        service = new RateLimitingService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsForOneClientGetExactlyCapacity() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            String key = "10.0.0." + round;
+            assertThat(race(key, 10)).isEqualTo(CAPACITY);
+            assertThat(service.isAllowedForReports(key)).isFalse();
+        }
+    }
+
+    @Test
+    void evictingIdleBucketsDoesNotHandOutExtraTokens() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> evictor = executor.submit(() -> {
+            while (running.get()) {
+                service.evictIdle();
+            }
+        });
+        try {
+            for (int round = 0; round < 50; round++) {
+                // Fresh buckets are full, so the evictor may drop them under the acquiring threads
+                assertThat(race("10.0.1." + round, 10)).isEqualTo(CAPACITY);
+            }
+        } finally {
+            running.set(false);
+            evictor.get();
+        }
+    }
+
+    @Test
+    void shrinkingKeepsTheMapBoundedAndNeverTurnsAwayNewClients() throws Exception {
+        properties.setMaxKeys(500);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> evictor = executor.submit(() -> {
+            while (running.get()) {
+                service.evictIdle();
+            }
+        });
+
+        AtomicInteger denied = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> clients = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            clients.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 5_000; i++) {
+                    // Every key is new, and a new client always has its full burst
+                    if (!service.isAllowedForReports("client-" + thread + "-" + i)) {
+                        denied.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            running.set(false);
+            evictor.get();
+        }
+
+        assertThat(denied.get()).isZero();
+        Map<?, ?> buckets = (Map<?, ?>) ReflectionTestUtils.getField(service, "buckets");
+        // Threads may add buckets while another one shrinks, but nowhere near the 80,000 offered
+        assertThat(buckets.size()).isLessThan(2 * properties.getMaxKeys());
+    }
+
+    @Test
+    void onlyFailedLoginsCount() {
+        String key = "10.0.2.1|student@example.com";
+        for (int i = 0; i < 10; i++) {
+            assertThat(service.isAllowedForLogin(key)).isTrue();
+        }
+        for (int i = 0; i < 3; i++) {
+            service.recordFailedLogin(key);
+        }
+        assertThat(service.isAllowedForLogin(key)).isFalse();
+        // Someone else at the same address is unaffected
+        assertThat(service.isAllowedForLogin("10.0.2.1|other@example.com")).isTrue();
+    }
+
+    // Sends attemptsPerThread requests from every thread at once and counts the allowed ones
+    private int race(String key, int attemptsPerThread) throws Exception {
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (service.isAllowedForReports(key)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        return allowed.get();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.angus.mail.smtp.SMTPTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.keiaa.safepoint.config.SmtpPoolProperties;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Sends through the pool and through plain JavaMailSender against
+ * GreenMail, counting the SMTP connections each opens and the NOOP checks
+ * made before a pooled connection is reused.
+ */
+class SmtpConnectionPoolTest {
+
+    private static final int MESSAGES = 20;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        CountingTransport.connects.set(0);
+        CountingTransport.checks.set(0);
+
+        Properties javaMailProperties = new Properties();
+        // Every transport the session hands out counts its connects
+        javaMailProperties.setProperty("mail.smtp.class", CountingTransport.class.getName());
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setJavaMailProperties(javaMailProperties);
+    }
+
+    @AfterEach
+    void stopPool() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void pooledSendsOpenOneConnectionPerChunk() throws Exception {
+        startPool(2, 100, Duration.ofSeconds(30));
+
+        assertThat(pool.send(messages("Pooled"))).isEmpty();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, MESSAGES)).isTrue();
+        assertThat(CountingTransport.connects.get()).isEqualTo(2);
+    }
+
+    @Test
+    void perMessageSendsOpenOneConnectionEach() throws Exception {
+        for (MimeMessage message : messages("Single")) {
+            mailSender.send(message);
+        }
+
+        assertThat(greenMail.waitForIncomingEmail(5000, MESSAGES)).isTrue();
+        assertThat(CountingTransport.connects.get()).isEqualTo(MESSAGES);
+    }
+
+    @Test
+    void replacesAConnectionAfterTheMessageCap() throws Exception {
+        startPool(1, 8, Duration.ofSeconds(30));
+
+        assertThat(pool.send(messages("Capped"))).isEmpty();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, MESSAGES)).isTrue();
+        // 8 + 8 + 4
+        assertThat(CountingTransport.connects.get()).isEqualTo(3);
+    }
+
+    @Test
+    void reusesAnIdleConnectionThatAnswersNoop() throws Exception {
+        startPool(1, 100, Duration.ZERO);
+
+        assertThat(pool.send(messages("First"))).isEmpty();
+        Thread.sleep(10);
+        assertThat(pool.send(messages("Second"))).isEmpty();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2 * MESSAGES)).isTrue();
+        assertThat(CountingTransport.checks.get()).isEqualTo(1);
+        assertThat(CountingTransport.connects.get()).isEqualTo(1);
+    }
+
+    @Test
+    void replacesAnIdleConnectionTheServerDropped() throws Exception {
+        startPool(1, 100, Duration.ZERO);
+        assertThat(pool.send(messages("Before"))).isEmpty();
+        assertThat(greenMail.waitForIncomingEmail(5000, MESSAGES)).isTrue();
+
+        // Closes every open connection, like a server timing them out
+        greenMail.reset();
+        Thread.sleep(10);
+
+        assertThat(pool.send(messages("After"))).isEmpty();
+        assertThat(greenMail.waitForIncomingEmail(5000, MESSAGES)).isTrue();
+        assertThat(CountingTransport.checks.get()).isEqualTo(1);
+        assertThat(CountingTransport.connects.get()).isEqualTo(2);
+    }
+
+    private void startPool(int maxConnections, int maxMessagesPerConnection, Duration validateAfterIdle) {
+        SmtpPoolProperties properties = new SmtpPoolProperties();
+        properties.setMaxConnections(maxConnections);
+        properties.setMaxMessagesPerConnection(maxMessagesPerConnection);
+        properties.setValidateAfterIdle(validateAfterIdle);
+        pool = new SmtpConnectionPool();
+        ReflectionTestUtils.setField(pool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(pool, "properties", properties);
+        pool.start();
+    }
+
+    private List<MimeMessage> messages(String subject) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("safepoint@localhost"));
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("student" + i + "@example.com"));
+            message.setSubject(subject + " " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * SMTP transport that counts connects and NOOP checks. Loaded by
+     * the mail session through mail.smtp.class, so it needs a public
+     * (Session, URLName) constructor.
+     */
+    public static class CountingTransport extends SMTPTransport {
+        static final AtomicInteger connects = new AtomicInteger();
+        static final AtomicInteger checks = new AtomicInteger();
+
+        public CountingTransport(Session session, URLName urlName) {
+            super(session, urlName);
+        }
+
+        @Override
+        protected synchronized boolean protocolConnect(String host, int port, String user, String password)
+                throws MessagingException {
+            connects.incrementAndGet();
+            return super.protocolConnect(host, port, user, password);
+        }
+
+        @Override
+        protected void sendCommand(String command) throws MessagingException {
+            // isConnected() on an open transport sends NOOP
+            if (command.equals("NOOP")) {
+                checks.incrementAndGet();
+            }
+            super.sendCommand(command);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://www.mozilla.org/MPL/2.0/.
+ */
+
+package com.keiaa.safepoint.service.utility;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that flush() hands every row written so far to the client, and
+ * that the flushed workbook is still a valid zip.
+ */
+class XlsxStreamWriterTest {
+
+    // Local file header: signature, versions, flags, method, times, crc, sizes, name length, extra length
+    private static final int LOCAL_HEADER_LENGTH = 30;
+
+    @Test
+    void flushPushesEveryRowWrittenSoFar() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxStreamWriter workbook = new XlsxStreamWriter(out);
+        workbook.beginSheet("Reports");
+        workbook.writeRow("RPT-0001", "Verbal", 1);
+        workbook.writeRow("RPT-0002", "Cyber", 2);
+        workbook.flush();
+
+        // The sheet entry is the first in the zip; inflate what has arrived
+        byte[] sent = out.toByteArray();
+        int nameLength = (sent[26] & 0xff) | (sent[27] & 0xff) << 8;
+        int extraLength = (sent[28] & 0xff) | (sent[29] & 0xff) << 8;
+        int dataStart = LOCAL_HEADER_LENGTH + nameLength + extraLength;
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(sent, dataStart, sent.length - dataStart);
+        byte[] inflated = new byte[64 * 1024];
+        String received = new String(inflated, 0, inflater.inflate(inflated), StandardCharsets.UTF_8);
+        inflater.end();
+
+        assertThat(received).contains("RPT-0001").endsWith("</row>");
+        workbook.close();
+    }
+
+    @Test
+    void flushedWorkbookIsAValidZip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxStreamWriter workbook = new XlsxStreamWriter(out)) {
+            workbook.flush();
+            workbook.beginSheet("Summary");
+            workbook.writeRow("Totals", "Reports", 3);
+            workbook.flush();
+            workbook.endSheet();
+            workbook.flush();
+            workbook.beginSheet("Reports");
+            for (int i = 0; i < 1000; i++) {
+                workbook.writeRow("RPT-" + i, "Verbal & <Cyber>", i);
+                if (i % 100 == 0) {
+                    workbook.flush();
+                }
+            }
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml", "xl/worksheets/sheet2.xml");
+        assertThat(entries.get("xl/worksheets/sheet1.xml")).contains("<v>3</v>");
+        assertThat(entries.get("xl/worksheets/sheet2.xml"))
+                .contains("RPT-999")
+                .contains("Verbal &amp; &lt;Cyber&gt;")
+                .endsWith("</sheetData></worksheet>");
+    }
+
+    private static Map<String, String> unzip(byte[] zip) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}